@@ -0,0 +1,107 @@
+package io.example.application;
+
+import akka.javasdk.testkit.EventSourcedTestKit;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant;
+import io.example.domain.Participant.ParticipantType;
+import io.example.domain.Timeslot;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Commands on the entities themselves, run through the EventSourcedTestKit so
+// that the command handlers, applyEvent and the state transitions are all
+// included. Every benchmark method runs a full cycle that leaves the entity
+// in the state it started in. The test kit adds its own overhead, so compare
+// these numbers with each other rather than with production latencies.
+//
+// The test kit keeps every event it has persisted, so a fresh one is created
+// for each iteration rather than letting one history grow over the whole run.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityCommandBenchmark {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+
+  @State(Scope.Thread)
+  public static class ParticipantSlot {
+    EventSourcedTestKit<ParticipantSlotEntity.State, ParticipantSlotEntity.Event, ParticipantSlotEntity>
+        testKit;
+
+    ParticipantSlotEntity.Commands.MarkAvailable mark =
+        new ParticipantSlotEntity.Commands.MarkAvailable(SLOT_ID, "alice", ParticipantType.STUDENT);
+    ParticipantSlotEntity.Commands.UnmarkAvailable unmark =
+        new ParticipantSlotEntity.Commands.UnmarkAvailable(SLOT_ID, "alice", ParticipantType.STUDENT);
+    ParticipantSlotEntity.Commands.Book book =
+        new ParticipantSlotEntity.Commands.Book(
+            SLOT_ID, "alice", ParticipantType.STUDENT, "booking-1");
+    ParticipantSlotEntity.Commands.Cancel cancel =
+        new ParticipantSlotEntity.Commands.Cancel(
+            SLOT_ID, "alice", ParticipantType.STUDENT, "booking-1");
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      testKit = EventSourcedTestKit.of(ParticipantSlotEntity::new);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class BookingSlot {
+    EventSourcedTestKit<Timeslot, BookingEvent, BookingSlotEntity>
+        testKit;
+
+    BookingSlotEntity.Command.MarkSlotAvailable markStudent =
+        new BookingSlotEntity.Command.MarkSlotAvailable(
+            new Participant("alice", ParticipantType.STUDENT));
+    BookingSlotEntity.Command.MarkSlotAvailable markAircraft =
+        new BookingSlotEntity.Command.MarkSlotAvailable(
+            new Participant("superplane", ParticipantType.AIRCRAFT));
+    BookingSlotEntity.Command.MarkSlotAvailable markInstructor =
+        new BookingSlotEntity.Command.MarkSlotAvailable(
+            new Participant("superteacher", ParticipantType.INSTRUCTOR));
+    // booking IDs can't be reused once canceled
+    long bookings;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      testKit = EventSourcedTestKit.of(SLOT_ID, BookingSlotEntity::new);
+      // canceling makes the trio available again, so this is only needed once
+      testKit.method(BookingSlotEntity::markSlotAvailable).invoke(markStudent);
+      testKit.method(BookingSlotEntity::markSlotAvailable).invoke(markAircraft);
+      testKit.method(BookingSlotEntity::markSlotAvailable).invoke(markInstructor);
+    }
+  }
+
+  // available -> booked -> available -> unavailable
+  @Benchmark
+  public Object participantSlotTransitions(ParticipantSlot slot) {
+    slot.testKit.method(ParticipantSlotEntity::markAvailable).invoke(slot.mark);
+    slot.testKit.method(ParticipantSlotEntity::book).invoke(slot.book);
+    slot.testKit.method(ParticipantSlotEntity::cancel).invoke(slot.cancel);
+    return slot.testKit.method(ParticipantSlotEntity::unmarkAvailable).invoke(slot.unmark);
+  }
+
+  // Books the available trio and cancels the booking
+  @Benchmark
+  public Object bookingSlotBookAndCancel(BookingSlot slot) {
+    var bookingId = "booking-" + slot.bookings++;
+    slot.testKit
+        .method(BookingSlotEntity::bookSlot)
+        .invoke(
+            new BookingSlotEntity.Command.BookReservation(
+                "alice", "superplane", "superteacher", bookingId));
+    return slot.testKit.method(BookingSlotEntity::cancelBooking).invoke(bookingId);
+  }
+}
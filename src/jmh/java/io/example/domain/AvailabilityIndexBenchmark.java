@@ -0,0 +1,178 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// AvailabilityIndex over a year of hourly slots for `participants`
+// participants. Each participant is available for a random 12-hour run of
+// most days, and one available hour in five is booked. Lookups cycle through
+// pregenerated participants and hours so that every invocation asks about a
+// different one.
+//
+// The *Set benchmarks answer the same questions from a set of free slot IDs
+// per participant, the way a per-slot view or entity lookup would, as a
+// baseline.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityIndexBenchmark {
+
+  private static final LocalDateTime FIRST_HOUR = LocalDateTime.of(2025, 1, 1, 0, 0);
+  private static final int HOURS = 365 * 24;
+  private static final String FIRST_SLOT = SlotId.of(FIRST_HOUR);
+  private static final String LAST_SLOT = SlotId.of(FIRST_HOUR.plusHours(HOURS - 1));
+  private static final int LOOKUPS = 1024;
+  private static final int COMMON_HOURS = 10;
+
+  @State(Scope.Benchmark)
+  public static class Participants {
+    @Param({"1000", "5000"})
+    int participants;
+
+    AvailabilityIndex index;
+    Map<String, Set<String>> freeSlotIds;
+    List<BookingEvent> oneParticipantsYear;
+
+    String[] participantIds;
+    String[] slotIds;
+    List<List<String>> trios;
+    int next;
+
+    @Setup
+    public void setup() {
+      var random = new Random(42);
+      index = new AvailabilityIndex();
+      freeSlotIds = new HashMap<>();
+      for (int p = 0; p < participants; p++) {
+        var participantId = "participant-" + p;
+        var events = year(participantId, random);
+        events.forEach(index::apply);
+        if (p == 0) {
+          oneParticipantsYear = events;
+        }
+
+        var free = new HashSet<String>();
+        for (var event : events) {
+          switch (event) {
+            case BookingEvent.ParticipantMarkedAvailable evt -> free.add(evt.slotId());
+            case BookingEvent.ParticipantBooked evt -> free.remove(evt.slotId());
+            default -> {}
+          }
+        }
+        freeSlotIds.put(participantId, free);
+      }
+
+      participantIds = new String[LOOKUPS];
+      slotIds = new String[LOOKUPS];
+      trios = new ArrayList<>(LOOKUPS);
+      for (int i = 0; i < LOOKUPS; i++) {
+        participantIds[i] = "participant-" + random.nextInt(participants);
+        slotIds[i] = SlotId.of(FIRST_HOUR.plusHours(random.nextInt(HOURS)));
+        trios.add(
+            List.of(
+                "participant-" + random.nextInt(participants),
+                "participant-" + random.nextInt(participants),
+                "participant-" + random.nextInt(participants)));
+      }
+    }
+
+    int next() {
+      next = (next + 1) & (LOOKUPS - 1);
+      return next;
+    }
+
+    // Available 12 hours from a random start on six days out of seven, with
+    // one available hour in five booked
+    private static List<BookingEvent> year(String participantId, Random random) {
+      var events = new ArrayList<BookingEvent>();
+      for (int day = 0; day < 365; day++) {
+        if (random.nextInt(7) == 0) {
+          continue;
+        }
+        var start = random.nextInt(12);
+        for (int hour = start; hour < start + 12; hour++) {
+          var slotId = SlotId.of(FIRST_HOUR.plusDays(day).withHour(hour));
+          events.add(
+              new BookingEvent.ParticipantMarkedAvailable(
+                  slotId, participantId, ParticipantType.INSTRUCTOR));
+          if (random.nextInt(5) == 0) {
+            events.add(
+                new BookingEvent.ParticipantBooked(
+                    slotId, participantId, ParticipantType.INSTRUCTOR, "booking-" + slotId));
+          }
+        }
+      }
+      return events;
+    }
+  }
+
+  @Benchmark
+  public boolean isBooked(Participants state) {
+    var i = state.next();
+    return state.index.isBooked(state.participantIds[i], state.slotIds[i]);
+  }
+
+  @Benchmark
+  public List<String> firstCommonFreeHours(Participants state) {
+    return state.index.firstCommonFreeHours(
+        state.trios.get(state.next()), FIRST_SLOT, LAST_SLOT, COMMON_HOURS);
+  }
+
+  // Free hours common to the trio over the whole year, i.e. a full scan
+  @Benchmark
+  public List<String> allCommonFreeHours(Participants state) {
+    return state.index.firstCommonFreeHours(
+        state.trios.get(state.next()), FIRST_SLOT, LAST_SLOT, HOURS);
+  }
+
+  @Benchmark
+  public boolean isFreeSet(Participants state) {
+    var i = state.next();
+    return state.freeSlotIds.get(state.participantIds[i]).contains(state.slotIds[i]);
+  }
+
+  @Benchmark
+  public List<String> firstCommonFreeHoursSet(Participants state) {
+    var trio = state.trios.get(state.next());
+    var first = state.freeSlotIds.get(trio.get(0));
+    var second = state.freeSlotIds.get(trio.get(1));
+    var third = state.freeSlotIds.get(trio.get(2));
+    var common = new ArrayList<String>(COMMON_HOURS);
+    for (int hour = 0; hour < HOURS && common.size() < COMMON_HOURS; hour++) {
+      var slotId = SlotId.of(FIRST_HOUR.plusHours(hour));
+      if (first.contains(slotId) && second.contains(slotId) && third.contains(slotId)) {
+        common.add(slotId);
+      }
+    }
+    return common;
+  }
+
+  // Rebuilds one participant's year from its events
+  @Benchmark
+  public AvailabilityIndex rebuildParticipant(Participants state) {
+    var index = new AvailabilityIndex();
+    state.oneParticipantsYear.forEach(index::apply);
+    return index;
+  }
+}
@@ -0,0 +1,85 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+// Synthetic BookingSlotEntity event histories for benchmarks. Each round marks
+// a student, an aircraft and an instructor available, books them, and then
+// mostly cancels the booking again, with some mark/unmark churn in between.
+// One booking in four is kept, so long histories end with a realistic mix of
+// bookings and available participants.
+final class EventHistories {
+
+  private static final int STUDENTS = 50;
+  private static final int AIRCRAFT = 10;
+  private static final int INSTRUCTORS = 15;
+
+  private EventHistories() {}
+
+  static List<BookingEvent> slotHistory(String slotId, int eventCount) {
+    var events = new ArrayList<BookingEvent>(eventCount + 11);
+    for (int round = 0; events.size() < eventCount; round++) {
+      var student = "student-" + (round % STUDENTS);
+      var aircraft = "aircraft-" + (round % AIRCRAFT);
+      var instructor = "instructor-" + (round % INSTRUCTORS);
+      var churn = "student-" + ((round + 7) % STUDENTS);
+      var bookingId = "booking-" + round;
+
+      events.add(mark(slotId, student, ParticipantType.STUDENT));
+      events.add(mark(slotId, aircraft, ParticipantType.AIRCRAFT));
+      events.add(mark(slotId, instructor, ParticipantType.INSTRUCTOR));
+      events.add(mark(slotId, churn, ParticipantType.STUDENT));
+      events.add(unmark(slotId, churn, ParticipantType.STUDENT));
+      events.add(book(slotId, student, ParticipantType.STUDENT, bookingId));
+      events.add(book(slotId, aircraft, ParticipantType.AIRCRAFT, bookingId));
+      events.add(book(slotId, instructor, ParticipantType.INSTRUCTOR, bookingId));
+      if (round % 4 != 0) {
+        events.add(cancel(slotId, student, ParticipantType.STUDENT, bookingId));
+        events.add(cancel(slotId, aircraft, ParticipantType.AIRCRAFT, bookingId));
+        events.add(cancel(slotId, instructor, ParticipantType.INSTRUCTOR, bookingId));
+      }
+    }
+    return List.copyOf(events.subList(0, eventCount));
+  }
+
+  static Timeslot emptyTimeslot() {
+    return new Timeslot(HashSet.newHashSet(10), HashSet.newHashSet(10));
+  }
+
+  // Same transitions as BookingSlotEntity.applyEvent
+  static Timeslot apply(Timeslot state, BookingEvent event) {
+    return switch (event) {
+      case BookingEvent.ParticipantMarkedAvailable evt -> state.reserve(evt);
+      case BookingEvent.ParticipantUnmarkedAvailable evt -> state.unreserve(evt);
+      case BookingEvent.ParticipantBooked evt -> state.book(evt);
+      case BookingEvent.ParticipantCanceled evt -> state.cancelBooking(evt.bookingId());
+    };
+  }
+
+  static Timeslot replay(Timeslot state, List<BookingEvent> events) {
+    for (BookingEvent event : events) {
+      state = apply(state, event);
+    }
+    return state;
+  }
+
+  private static BookingEvent mark(String slotId, String id, ParticipantType type) {
+    return new BookingEvent.ParticipantMarkedAvailable(slotId, id, type);
+  }
+
+  private static BookingEvent unmark(String slotId, String id, ParticipantType type) {
+    return new BookingEvent.ParticipantUnmarkedAvailable(slotId, id, type);
+  }
+
+  private static BookingEvent book(
+      String slotId, String id, ParticipantType type, String bookingId) {
+    return new BookingEvent.ParticipantBooked(slotId, id, type, bookingId);
+  }
+
+  private static BookingEvent cancel(
+      String slotId, String id, ParticipantType type, String bookingId) {
+    return new BookingEvent.ParticipantCanceled(slotId, id, type, bookingId);
+  }
+}
@@ -0,0 +1,47 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.HashSet;
+import java.util.Set;
+
+// Availability kept the way Timeslot kept it before it grouped available IDs
+// by participant type: one set of Participant records, with a Participant
+// allocated for every lookup and change, and every event copied before it is
+// applied. Only here as the baseline for TimeslotAllocationBenchmark.
+final class SetTimeslot {
+
+  private final Set<Participant> available = new HashSet<>();
+
+  void reserve(BookingEvent.ParticipantMarkedAvailable reserved) {
+    available.add(new Participant(reserved.participantId(), reserved.participantType()));
+  }
+
+  void unreserve(BookingEvent.ParticipantUnmarkedAvailable unreserved) {
+    available.remove(new Participant(unreserved.participantId(), unreserved.participantType()));
+  }
+
+  boolean isWaiting(String participantId, ParticipantType participantType) {
+    return available.contains(new Participant(participantId, participantType));
+  }
+
+  boolean isBookable(String studentId, String aircraftId, String instructorId) {
+    return isWaiting(studentId, ParticipantType.STUDENT)
+        && isWaiting(aircraftId, ParticipantType.AIRCRAFT)
+        && isWaiting(instructorId, ParticipantType.INSTRUCTOR);
+  }
+
+  // As BookingSlotEntity.applyEvent did for availability events
+  void apply(BookingEvent event) {
+    switch (event) {
+      case BookingEvent.ParticipantMarkedAvailable evt ->
+          reserve(
+              new BookingEvent.ParticipantMarkedAvailable(
+                  evt.slotId(), evt.participantId(), evt.participantType()));
+      case BookingEvent.ParticipantUnmarkedAvailable evt ->
+          unreserve(
+              new BookingEvent.ParticipantUnmarkedAvailable(
+                  evt.slotId(), evt.participantId(), evt.participantType()));
+      default -> {}
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Allocation on the hot paths of a Timeslot: the availability check every
+// booking command makes, and replaying availability events. Each is measured
+// for Timeslot and for SetTimeslot, the set-of-Participant layout it replaced.
+// Run with the gc profiler (the jmh profile does) and compare
+// gc.alloc.rate.norm, the bytes allocated per operation.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeslotAllocationBenchmark {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+  private static final int PARTICIPANTS = 20;
+
+  @State(Scope.Benchmark)
+  public static class Slots {
+    Timeslot timeslot;
+    SetTimeslot setTimeslot;
+    List<BookingEvent> churn;
+
+    @Setup
+    public void setup() {
+      timeslot = EventHistories.emptyTimeslot();
+      setTimeslot = new SetTimeslot();
+      for (int i = 0; i < PARTICIPANTS; i++) {
+        for (ParticipantType type : ParticipantType.values()) {
+          var marked = new BookingEvent.ParticipantMarkedAvailable(SLOT_ID, id(type, i), type);
+          timeslot.reserve(marked);
+          setTimeslot.reserve(marked);
+        }
+      }
+
+      // unmarking and marking again leaves the availability as it was
+      churn = new ArrayList<>();
+      for (int i = 0; i < PARTICIPANTS; i++) {
+        var id = id(ParticipantType.STUDENT, i);
+        churn.add(
+            new BookingEvent.ParticipantUnmarkedAvailable(SLOT_ID, id, ParticipantType.STUDENT));
+        churn.add(
+            new BookingEvent.ParticipantMarkedAvailable(SLOT_ID, id, ParticipantType.STUDENT));
+      }
+    }
+
+    private static String id(ParticipantType type, int i) {
+      return type.name().toLowerCase() + "-" + i;
+    }
+  }
+
+  @Benchmark
+  public boolean isBookable(Slots slots) {
+    return slots.timeslot.isBookable("student-3", "aircraft-5", "instructor-7");
+  }
+
+  @Benchmark
+  public boolean isBookableSetOfParticipants(Slots slots) {
+    return slots.setTimeslot.isBookable("student-3", "aircraft-5", "instructor-7");
+  }
+
+  @Benchmark
+  public Timeslot replayAvailability(Slots slots) {
+    var timeslot = slots.timeslot;
+    for (BookingEvent event : slots.churn) {
+      timeslot = EventHistories.apply(timeslot, event);
+    }
+    return timeslot;
+  }
+
+  @Benchmark
+  public SetTimeslot replayAvailabilitySetOfParticipants(Slots slots) {
+    for (BookingEvent event : slots.churn) {
+      slots.setTimeslot.apply(event);
+    }
+    return slots.setTimeslot;
+  }
+}
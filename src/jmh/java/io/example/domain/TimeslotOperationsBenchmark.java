@@ -0,0 +1,122 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The Timeslot operations behind every BookingSlotEntity command and event,
+// on a slot with `available` participants of each type marked available and
+// `bookings` bookings. Operations that change the slot undo themselves in the
+// same benchmark method so that the slot keeps its size between invocations.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeslotOperationsBenchmark {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+
+  @State(Scope.Benchmark)
+  public static class Slot {
+    @Param({"10", "100", "1000"})
+    int available;
+
+    @Param({"10", "100", "1000"})
+    int bookings;
+
+    Timeslot timeslot;
+
+    BookingEvent.ParticipantMarkedAvailable mark;
+    BookingEvent.ParticipantUnmarkedAvailable unmark;
+    List<BookingEvent.ParticipantMarkedAvailable> markTrio;
+    List<BookingEvent.ParticipantBooked> bookTrio;
+    String existingBookingId;
+
+    @Setup
+    public void setup() {
+      timeslot = EventHistories.emptyTimeslot();
+      for (int i = 0; i < available; i++) {
+        for (ParticipantType type : ParticipantType.values()) {
+          timeslot.reserve(new BookingEvent.ParticipantMarkedAvailable(SLOT_ID, id(type, i), type));
+        }
+      }
+      for (int i = 0; i < bookings; i++) {
+        var bookingId = "booking-" + i;
+        for (ParticipantType type : ParticipantType.values()) {
+          timeslot.book(
+              new BookingEvent.ParticipantBooked(SLOT_ID, "booked-" + id(type, i), type, bookingId));
+        }
+      }
+      existingBookingId = "booking-" + (bookings / 2);
+
+      mark = new BookingEvent.ParticipantMarkedAvailable(SLOT_ID, "new-student", ParticipantType.STUDENT);
+      unmark =
+          new BookingEvent.ParticipantUnmarkedAvailable(SLOT_ID, "new-student", ParticipantType.STUDENT);
+      markTrio =
+          List.of(
+              new BookingEvent.ParticipantMarkedAvailable(
+                  SLOT_ID, "trio-student", ParticipantType.STUDENT),
+              new BookingEvent.ParticipantMarkedAvailable(
+                  SLOT_ID, "trio-aircraft", ParticipantType.AIRCRAFT),
+              new BookingEvent.ParticipantMarkedAvailable(
+                  SLOT_ID, "trio-instructor", ParticipantType.INSTRUCTOR));
+      bookTrio =
+          List.of(
+              new BookingEvent.ParticipantBooked(
+                  SLOT_ID, "trio-student", ParticipantType.STUDENT, "trio-booking"),
+              new BookingEvent.ParticipantBooked(
+                  SLOT_ID, "trio-aircraft", ParticipantType.AIRCRAFT, "trio-booking"),
+              new BookingEvent.ParticipantBooked(
+                  SLOT_ID, "trio-instructor", ParticipantType.INSTRUCTOR, "trio-booking"));
+    }
+
+    private static String id(ParticipantType type, int i) {
+      return type.name().toLowerCase() + "-" + i;
+    }
+  }
+
+  @Benchmark
+  public Timeslot reserveAndUnreserve(Slot slot) {
+    return slot.timeslot.reserve(slot.mark).unreserve(slot.unmark);
+  }
+
+  // Marks three participants available, books them and cancels the booking
+  @Benchmark
+  public Timeslot bookAndCancel(Slot slot) {
+    var timeslot = slot.timeslot;
+    for (var mark : slot.markTrio) {
+      timeslot = timeslot.reserve(mark);
+    }
+    for (var book : slot.bookTrio) {
+      timeslot = timeslot.book(book);
+    }
+    return timeslot.cancelBooking("trio-booking");
+  }
+
+  @Benchmark
+  public List<Timeslot.Booking> findBooking(Slot slot) {
+    return slot.timeslot.findBooking(slot.existingBookingId);
+  }
+
+  @Benchmark
+  public List<Timeslot.Booking> findMissingBooking(Slot slot) {
+    return slot.timeslot.findBooking("no-such-booking");
+  }
+
+  @Benchmark
+  public boolean isBookable(Slot slot) {
+    return slot.timeslot.isBookable("student-3", "aircraft-5", "instructor-7");
+  }
+}
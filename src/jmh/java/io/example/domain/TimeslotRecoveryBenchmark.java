@@ -0,0 +1,91 @@
+package io.example.domain;
+
+import akka.javasdk.JsonSupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to recover a BookingSlotEntity's Timeslot against the length of its
+// event history, replaying every event (up to a million of them) versus
+// loading the latest snapshot and replaying only the events persisted after
+// it. Snapshots are decoded both from the compact encoding and from the
+// original record layout.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeslotRecoveryBenchmark {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+
+  // Timeslot as it was serialized before the compact encoding
+  record RecordLayout(Set<Timeslot.Booking> bookings, Set<Participant> available) {}
+
+  @State(Scope.Benchmark)
+  public static class EventsOnly {
+    @Param({"10000", "100000", "1000000"})
+    int eventCount;
+
+    List<BookingEvent> events;
+
+    @Setup
+    public void setup() {
+      events = EventHistories.slotHistory(SLOT_ID, eventCount);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class WithSnapshot {
+    @Param({"1000", "10000", "100000"})
+    int eventCount;
+
+    @Param({"100"})
+    int snapshotEvery;
+
+    @Param({"compact", "record"})
+    String encoding;
+
+    ObjectMapper mapper;
+    byte[] snapshot;
+    List<BookingEvent> tail;
+
+    @Setup
+    public void setup() throws IOException {
+      mapper = JsonSupport.getObjectMapper();
+      var events = EventHistories.slotHistory(SLOT_ID, eventCount);
+      var snapshotAt = (eventCount / snapshotEvery) * snapshotEvery;
+      var state =
+          EventHistories.replay(EventHistories.emptyTimeslot(), events.subList(0, snapshotAt));
+      snapshot =
+          encoding.equals("compact")
+              ? mapper.writeValueAsBytes(state)
+              : mapper.writeValueAsBytes(new RecordLayout(state.bookings(), state.available()));
+      tail = events.subList(snapshotAt, eventCount);
+    }
+  }
+
+  @Benchmark
+  public Timeslot recoverFromEvents(EventsOnly history) {
+    return EventHistories.replay(EventHistories.emptyTimeslot(), history.events);
+  }
+
+  @Benchmark
+  public Timeslot recoverFromSnapshot(WithSnapshot history) throws IOException {
+    var state = history.mapper.readValue(history.snapshot, Timeslot.class);
+    return EventHistories.replay(state, history.tail);
+  }
+}
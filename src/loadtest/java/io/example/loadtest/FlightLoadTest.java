@@ -0,0 +1,248 @@
+package io.example.loadtest;
+
+import akka.javasdk.http.StrictResponse;
+import akka.javasdk.testkit.TestKit;
+import akka.javasdk.testkit.TestKitSupport;
+import akka.javasdk.testkit.TestModelProvider;
+import io.example.api.FlightEndpoint;
+import io.example.application.FlightConditionsAgent;
+import io.example.application.LatencyHistogram;
+import io.example.application.ParticipantSlotsView;
+import io.example.domain.SlotId;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drives a mixed workload against the flight HTTP API at a fixed operation
+// rate and reports throughput, latency percentiles per operation and how
+// long bookings take to show up in the participant slots view.
+//
+// The service runs in-process through the test kit. The flight conditions
+// agent talks to a TestModelProvider instead of Gemini, which answers after
+// `loadtest.model-latency` and rejects `loadtest.model-reject-percent` of the
+// slots, so runs are repeatable and cost nothing. See LoadTestSettings for
+// the other parameters. Run with: mvn -Ploadtest verify
+public class FlightLoadTest extends TestKitSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightLoadTest.class);
+
+    private static final Duration VIEW_LAG_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration VIEW_POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    private final TestModelProvider conditionsModel = new TestModelProvider();
+
+    // Every scenario gets its own slot and participants, a year ahead so that
+    // the slots are always in the future
+    private final LocalDateTime firstSlot = LocalDate.now().plusYears(1).atStartOfDay();
+    private final AtomicLong scenarios = new AtomicLong();
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> responses = new ConcurrentHashMap<>();
+    // every HTTP request sent, including the view polls, as one operation
+    // can make several
+    private final LongAdder httpRequests = new LongAdder();
+    private final LatencyHistogram viewLag = new LatencyHistogram();
+    private final LongAdder viewLagTimeouts = new LongAdder();
+    private final ConcurrentLinkedQueue<Booking> bookings = new ConcurrentLinkedQueue<>();
+
+    private record Booking(String slotId, String bookingId) {
+    }
+
+    @Override
+    protected TestKit.Settings testKitSettings() {
+        // the predicates only pick the answer, the model's latency is spent
+        // producing the reply
+        conditionsModel
+                .whenMessage(message -> Math.floorMod(message.hashCode(), 100) < settings.modelRejectPercent())
+                .reply(message -> delayed(conditionsReport(false)));
+        conditionsModel
+                .whenMessage(message -> true)
+                .reply(message -> delayed(conditionsReport(true)));
+
+        return TestKit.Settings.DEFAULT
+                .withAdditionalConfig("""
+                        flight-conditions.evaluator = agent
+                        flight-conditions.precompute.initial-delay = 1h
+                        """)
+                .withModelProvider(FlightConditionsAgent.class, conditionsModel);
+    }
+
+    @Test
+    public void mixedWorkload() throws Exception {
+        logger.info("Running {}", settings);
+
+        var inFlight = new ConcurrentLinkedQueue<CompletableFuture<?>>();
+        var ticker = Executors.newSingleThreadScheduledExecutor();
+        var started = System.nanoTime();
+        ticker.scheduleAtFixedRate(
+                // failed requests are counted by `timed`, they don't stop the run
+                () -> inFlight.add(nextOperation().toCompletableFuture().exceptionally(ex -> null)),
+                0,
+                TimeUnit.SECONDS.toNanos(1) / settings.rps(),
+                TimeUnit.NANOSECONDS);
+
+        Thread.sleep(settings.duration().toMillis());
+        ticker.shutdown();
+        var issued = System.nanoTime();
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new))
+                .get(VIEW_LAG_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS);
+
+        report(inFlight.size(), Duration.ofNanos(issued - started), Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private CompletionStage<?> nextOperation() {
+        var pick = ThreadLocalRandom.current().nextInt(settings.totalWeight());
+        if ((pick -= settings.availabilityWeight()) < 0) {
+            var n = scenarios.incrementAndGet();
+            return markAvailable(slotId(n), "student-" + n, "student");
+        }
+        if ((pick -= settings.bookingWeight()) < 0) {
+            return bookScenario(scenarios.incrementAndGet());
+        }
+        if ((pick -= settings.cancelWeight()) < 0) {
+            var booking = bookings.poll();
+            if (booking != null) {
+                return timed("cancel", httpClient
+                        .DELETE("/flight/bookings/" + booking.slotId() + "/" + booking.bookingId())
+                        .invokeAsync());
+            }
+        }
+        return query();
+    }
+
+    // Marks a student, an aircraft and an instructor available in a fresh
+    // slot and books them, then measures how long until the booking shows
+    // in the view
+    private CompletionStage<?> bookScenario(long n) {
+        var slotId = slotId(n);
+        var studentId = "student-" + n;
+        var bookingId = "booking-" + n;
+        var marked = CompletableFuture.allOf(
+                markAvailable(slotId, studentId, "student").toCompletableFuture(),
+                markAvailable(slotId, "aircraft-" + n, "aircraft").toCompletableFuture(),
+                markAvailable(slotId, "instructor-" + n, "instructor").toCompletableFuture());
+
+        return marked.thenCompose(__ -> timed("booking", httpClient
+                        .POST("/flight/bookings/" + slotId)
+                        .withRequestBody(new FlightEndpoint.BookingRequest(
+                                studentId, "aircraft-" + n, "instructor-" + n, bookingId))
+                        .invokeAsync()))
+                .thenCompose(response -> {
+                    if (response.status().intValue() != 201) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    bookings.add(new Booking(slotId, bookingId));
+                    return awaitInView(studentId, bookingId, System.nanoTime());
+                });
+    }
+
+    private CompletionStage<Void> awaitInView(String studentId, String bookingId, long bookedAt) {
+        httpRequests.increment();
+        return httpClient
+                .GET("/flight/slots/" + studentId + "/booked")
+                .responseBodyAs(ParticipantSlotsView.SlotList.class)
+                .invokeAsync()
+                .thenCompose(response -> {
+                    var elapsed = Duration.ofNanos(System.nanoTime() - bookedAt);
+                    if (response.body().slots().stream().anyMatch(row -> bookingId.equals(row.bookingId()))) {
+                        viewLag.record(elapsed);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (elapsed.compareTo(VIEW_LAG_TIMEOUT) > 0) {
+                        viewLagTimeouts.increment();
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    var poll = CompletableFuture.delayedExecutor(VIEW_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> {}, poll)
+                            .thenCompose(___ -> awaitInView(studentId, bookingId, bookedAt));
+                });
+    }
+
+    private CompletionStage<?> markAvailable(String slotId, String participantId, String participantType) {
+        return timed("availability", httpClient
+                .POST("/flight/availability/" + slotId)
+                .withRequestBody(new FlightEndpoint.AvailabilityRequest(participantId, participantType))
+                .invokeAsync());
+    }
+
+    // The available slots of a student from an earlier scenario
+    private CompletionStage<?> query() {
+        var n = ThreadLocalRandom.current().nextLong(scenarios.get() + 1);
+        return timed("query", httpClient
+                .GET("/flight/slots/student-" + n + "/available")
+                .invokeAsync());
+    }
+
+    private <T> CompletionStage<StrictResponse<T>> timed(String operation, CompletionStage<StrictResponse<T>> request) {
+        httpRequests.increment();
+        var started = System.nanoTime();
+        return request.whenComplete((response, ex) -> {
+            latencies.computeIfAbsent(operation, op -> new LatencyHistogram())
+                    .record(Duration.ofNanos(System.nanoTime() - started));
+            var outcome = ex != null ? "error" : String.valueOf(response.status().intValue());
+            responses.computeIfAbsent(operation + " " + outcome, key -> new LongAdder()).increment();
+        });
+    }
+
+    private void report(int operations, Duration issuing, Duration total) {
+        var lines = new ArrayList<String>();
+        lines.add("Load test: %d operations issued over %ds at a target of %d/s, all done after %dms"
+                .formatted(operations, issuing.toSeconds(), settings.rps(), total.toMillis()));
+        lines.add("Throughput: %.1f operations/s, %.1f HTTP requests/s (%d requests)".formatted(
+                operations * 1000.0 / total.toMillis(),
+                httpRequests.sum() * 1000.0 / total.toMillis(),
+                httpRequests.sum()));
+
+        lines.add("Latency (ms):");
+        new TreeMap<>(latencies).forEach((operation, histogram) -> lines.add(format(operation, histogram.snapshot())));
+        lines.add(format("view-lag", viewLag.snapshot()) + "  (not seen in view: " + viewLagTimeouts.sum() + ")");
+
+        lines.add("Responses:");
+        new TreeMap<>(responses).forEach((outcome, count) -> lines.add("  %-24s %8d".formatted(outcome, count.sum())));
+
+        lines.add("Pipeline metrics: " + httpClient.GET("/metrics/pipeline").invoke().body().utf8String());
+        lines.add("Route metrics: " + httpClient.GET("/metrics/routes").invoke().body().utf8String());
+        lines.add("Agent admission: " + httpClient.GET("/metrics/agent-admission").invoke().body().utf8String());
+
+        logger.info(String.join(System.lineSeparator(), lines));
+    }
+
+    private static String format(String name, LatencyHistogram.Snapshot snapshot) {
+        return "  %-14s count %8d  p50 %6d  p99 %6d  max %6d".formatted(
+                name, snapshot.count(), snapshot.p50Millis(), snapshot.p99Millis(), snapshot.maxMillis());
+    }
+
+    private String slotId(long n) {
+        return SlotId.of(firstSlot.plusHours(n));
+    }
+
+    private static String conditionsReport(boolean meetsRequirements) {
+        return "{\"timeSlotId\": \"loadtest\", \"meetsRequirements\": " + meetsRequirements + "}";
+    }
+
+    private String delayed(String reply) {
+        try {
+            Thread.sleep(settings.modelLatency().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return reply;
+    }
+}
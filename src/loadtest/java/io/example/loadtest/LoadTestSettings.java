@@ -0,0 +1,39 @@
+package io.example.loadtest;
+
+import java.time.Duration;
+
+// Load test parameters, read from system properties so they can be given on
+// the Maven command line, e.g. -Dloadtest.rps=200 -Dloadtest.duration=PT2M
+//
+// `rps` is the rate at which operations are started. A booking operation
+// marks three participants available, books and then polls the view, so the
+// HTTP request rate is higher; the report gives both.
+//
+// The workload weights are relative: with the defaults, 2 in 10 operations
+// mark availability, 3 book a slot, 1 cancels a booking and 4 are queries.
+record LoadTestSettings(
+        int rps,
+        Duration duration,
+        Duration modelLatency,
+        int modelRejectPercent,
+        int availabilityWeight,
+        int bookingWeight,
+        int cancelWeight,
+        int queryWeight) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.rps", 50),
+                Duration.parse(System.getProperty("loadtest.duration", "PT30S")),
+                Duration.parse(System.getProperty("loadtest.model-latency", "PT0.5S")),
+                Integer.getInteger("loadtest.model-reject-percent", 10),
+                Integer.getInteger("loadtest.weight.availability", 2),
+                Integer.getInteger("loadtest.weight.booking", 3),
+                Integer.getInteger("loadtest.weight.cancel", 1),
+                Integer.getInteger("loadtest.weight.query", 4));
+    }
+
+    int totalWeight() {
+        return availabilityWeight + bookingWeight + cancelWeight + queryWeight;
+    }
+}
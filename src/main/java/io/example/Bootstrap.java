@@ -0,0 +1,82 @@
+package io.example;
+
+import akka.javasdk.DependencyProvider;
+import akka.javasdk.ServiceSetup;
+import akka.javasdk.annotations.Setup;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timer.TimerScheduler;
+import com.typesafe.config.Config;
+import io.example.application.AgentAdmissionControl;
+import io.example.application.ConditionsPrecomputeAction;
+import io.example.application.ConditionsVerdictCache;
+import io.example.application.FileForecastProvider;
+import io.example.application.FlightConditionsChecker;
+import io.example.application.FlightConditionsSettings;
+import io.example.application.ForecastProvider;
+
+import java.time.Duration;
+
+// Service wiring. Creates the shared, service-wide objects once and hands
+// them to the components that ask for them in their constructors.
+@Setup
+public class Bootstrap implements ServiceSetup {
+
+    private final ComponentClient componentClient;
+    private final TimerScheduler timerScheduler;
+    private final Duration precomputeInitialDelay;
+    private final AgentAdmissionControl admissionControl;
+    private final FlightConditionsSettings conditionsSettings;
+    private final ForecastProvider forecastProvider;
+    private final FlightConditionsChecker conditionsChecker;
+
+    public Bootstrap(ComponentClient componentClient, TimerScheduler timerScheduler, Config config) {
+        this.componentClient = componentClient;
+        this.timerScheduler = timerScheduler;
+
+        this.conditionsSettings = FlightConditionsSettings.fromConfig(config);
+        this.forecastProvider = FileForecastProvider.fromConfig(config);
+        var verdictCache = new ConditionsVerdictCache(
+                conditionsSettings.verdictCacheTtl(),
+                conditionsSettings.verdictCacheMaxEntries());
+        this.admissionControl = new AgentAdmissionControl(AgentAdmissionControl.Settings.fromConfig(config));
+        this.conditionsChecker = new FlightConditionsChecker(
+                componentClient, verdictCache, conditionsSettings, admissionControl, forecastProvider);
+        this.precomputeInitialDelay = config.getDuration("flight-conditions.precompute.initial-delay");
+    }
+
+    @Override
+    public void onStartup() {
+        // The sweep reschedules itself; (re)starting the timer here replaces
+        // any sweep left over from a previous run of the service
+        timerScheduler.createSingleTimer(
+                ConditionsPrecomputeAction.SWEEP_TIMER,
+                precomputeInitialDelay,
+                componentClient
+                        .forTimedAction()
+                        .method(ConditionsPrecomputeAction::sweepUpcoming)
+                        .deferred());
+    }
+
+    @Override
+    public DependencyProvider createDependencyProvider() {
+        return new DependencyProvider() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getDependency(Class<T> clazz) {
+                if (clazz == FlightConditionsChecker.class) {
+                    return (T) conditionsChecker;
+                }
+                if (clazz == AgentAdmissionControl.class) {
+                    return (T) admissionControl;
+                }
+                if (clazz == ForecastProvider.class) {
+                    return (T) forecastProvider;
+                }
+                if (clazz == FlightConditionsSettings.class) {
+                    return (T) conditionsSettings;
+                }
+                throw new IllegalArgumentException("Unknown dependency type: " + clazz);
+            }
+        };
+    }
+}
@@ -1,19 +1,52 @@
 package io.example.api;
 
-import java.util.Collections;
-import java.util.UUID;
-
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import akka.Done;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.typesafe.config.Config;
 import akka.javasdk.agent.ModelTimeoutException;
 import akka.javasdk.agent.RateLimitException;
 import akka.javasdk.agent.ToolCallExecutionException;
+import io.example.application.AgentAdmissionControl.AgentUnavailableException;
+import io.example.application.BlockBookingWorkflow;
 import io.example.application.BookingSlotEntity;
-import io.example.application.FlightConditionsAgent;
+import io.example.application.FlightConditionsAgent.ConditionsReport;
+import io.example.application.FlightConditionsChecker;
+import io.example.application.ParticipantCalendarEntity;
 import io.example.application.ParticipantSlotsView;
+import io.example.application.SlotAvailabilityView;
+import io.example.application.WaitlistEntity;
+import io.example.application.WeatherCancellationWorkflow;
+import io.example.application.Spans;
+import io.example.domain.AvailabilityIndex;
 import io.example.domain.Participant;
+import io.example.domain.ParticipantCalendar;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import akka.http.javadsl.model.ContentTypes;
+import akka.http.javadsl.model.HttpHeader;
 import akka.http.javadsl.model.HttpResponse;
+import akka.http.javadsl.model.StatusCodes;
 import akka.javasdk.annotations.Acl;
 import akka.javasdk.annotations.http.Delete;
 import akka.javasdk.annotations.http.Get;
@@ -25,7 +58,9 @@ import akka.javasdk.http.HttpException;
 import akka.javasdk.http.HttpResponses;
 import io.example.application.ParticipantSlotsView.SlotList;
 import io.example.domain.Participant.ParticipantType;
+import io.example.domain.SlotId;
 import io.example.domain.Timeslot;
+import io.example.domain.Waitlist;
 
 @Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
 @HttpEndpoint("/flight")
@@ -33,9 +68,39 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
     private final Logger log = LoggerFactory.getLogger(FlightEndpoint.class);
 
     private final ComponentClient componentClient;
-
-    public FlightEndpoint(ComponentClient componentClient) {
+    private final FlightConditionsChecker conditionsChecker;
+    private final Materializer materializer;
+    private final int bulkParallelism;
+    private final int bulkMaxSlots;
+    private final int schedulePageSize;
+    private final int scheduleMaxPageSize;
+    private final int blockBookingMaxHours;
+    private final int commonFreeHoursMaxParticipants;
+    private final int commonFreeHoursMaxDays;
+    private final int commonFreeHoursDefaultCount;
+    private final int weatherCancellationMaxDays;
+    private final boolean slotEntities;
+    private final boolean calendars;
+
+    public FlightEndpoint(
+            ComponentClient componentClient,
+            FlightConditionsChecker conditionsChecker,
+            Materializer materializer,
+            Config config) {
         this.componentClient = componentClient;
+        this.conditionsChecker = conditionsChecker;
+        this.materializer = materializer;
+        this.bulkParallelism = config.getInt("flight.bulk-availability.parallelism");
+        this.bulkMaxSlots = config.getInt("flight.bulk-availability.max-slots");
+        this.schedulePageSize = config.getInt("flight.schedule.page-size");
+        this.scheduleMaxPageSize = config.getInt("flight.schedule.max-page-size");
+        this.blockBookingMaxHours = config.getInt("flight.block-booking.max-hours");
+        this.commonFreeHoursMaxParticipants = config.getInt("flight.common-free-hours.max-participants");
+        this.commonFreeHoursMaxDays = config.getInt("flight.common-free-hours.max-days");
+        this.commonFreeHoursDefaultCount = config.getInt("flight.common-free-hours.default-count");
+        this.weatherCancellationMaxDays = config.getInt("flight.weather-cancellation.max-days");
+        this.slotEntities = config.getBoolean("flight.participant-state.slot-entities");
+        this.calendars = config.getBoolean("flight.participant-state.calendars");
     }
     //TODO: error handling
     //TODO: invariants
@@ -46,9 +111,12 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
     // Creates a new booking. All three identified participants will
     // be considered booked for the given timeslot, if they are all
     // "available" at the time of booking.
+    //
+    // With `returnState=true` the 201 carries the booking as the slot entity
+    // recorded it, see BookingSlotEntity.BookingReply.
     @Post("/bookings/{slotId}")
-    public HttpResponse createBooking(String slotId, BookingRequest request) {
-        log.info("Creating booking for slot {}: {}", slotId, request);
+    public CompletionStage<HttpResponse> createBooking(String slotId, BookingRequest request) {
+        log.debug("Creating booking for slot {}: {}", slotId, request);
 
         // check request is correct
         String studentId = request.studentId;
@@ -60,102 +128,557 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
             aircraftId == null ||
             instructorId == null ||
             bookingId == null) {
-            return HttpResponses.badRequest();
+            return CompletableFuture.completedFuture(HttpResponses.badRequest());
         }
 
+        var tracing = requestContext().tracing();
+        var ids = Spans.attributes(Spans.SLOT_ID, slotId, Spans.BOOKING_ID, bookingId);
+        Spans.tag(tracing, ids);
+
+        // The slot is read before the weather is checked. A retried request
+        // (the booking is already there), a booking ID that was used before and
+        // a slot that isn't bookable are answered from the slot alone, so they
+        // never take an agent call.
+        return RouteMetrics.timeAsync("POST /flight/bookings/{slotId}", () -> {
+            var slot = Spans.traceAsync(tracing, "BookingSlotEntity.getSlot", ids, () -> componentClient
+                    .forEventSourcedEntity(slotId)
+                    .method(BookingSlotEntity::getSlot)
+                    .invokeAsync());
+            return slot
+                    .thenCompose(timeslot -> {
+                        if (timeslot.isBookedAs(bookingId, studentId, aircraftId, instructorId)) {
+                            log.debug("Booking {} already made", bookingId);
+                            return book(slotId, request);
+                        }
+                        if (!timeslot.findBooking(bookingId).isEmpty() || timeslot.wasCanceled(bookingId)) {
+                            return CompletableFuture.completedFuture(
+                                    HttpResponses.badRequest("Booking ID has already been used."));
+                        }
+                        if (!timeslot.isBookable(studentId, aircraftId, instructorId)) {
+                            return CompletableFuture.completedFuture(
+                                    HttpResponses.badRequest("Timeslot is not bookable."));
+                        }
+                        return conditionsChecker.check(slotId, tracing).thenCompose(agentJudgement -> {
+                            if (!agentJudgement.meetsRequirements()) {
+                                log.debug("AgentJudgement: {}", agentJudgement);
+                                return CompletableFuture.completedFuture(HttpResponses.badRequest(
+                                        "Weather conditions are unsuitable" + limitedBy(agentJudgement)
+                                                + ". Cannot create booking."));
+                            }
+                            log.debug("Booking slot {} for {}", bookingId, request);
+                            return book(slotId, request);
+                        });
+                    })
+                    .exceptionally(this::bookingFailed);
+        });
+    }
+
+    // The entity command, i.e. the round trip to persist the booking events
+    private CompletionStage<HttpResponse> book(String slotId, BookingRequest request) {
+        var ids = Spans.attributes(Spans.SLOT_ID, slotId, Spans.BOOKING_ID, request.bookingId);
+        return Spans.traceAsync(requestContext().tracing(), "BookingSlotEntity.bookSlot", ids, () -> componentClient
+                        .forEventSourcedEntity(slotId)
+                        .method(BookingSlotEntity::bookSlot)
+                        .invokeAsync(new BookingSlotEntity.Command.BookReservation(
+                                request.studentId, request.aircraftId, request.instructorId, request.bookingId)))
+                .thenApply(reply -> returnState() ? HttpResponses.created(reply) : HttpResponses.created());
+    }
+
+    // Puts a booking request on the slot's waitlist. It is booked as soon as
+    // the student, aircraft and instructor are all available in the slot and
+    // the weather allows, see WaitlistConsumer. A slot that can be booked
+    // right away is rejected, book it instead, and so is a slot that has
+    // already started.
+    @Post("/waitlist/{slotId}")
+    public CompletionStage<HttpResponse> joinWaitlist(String slotId, BookingRequest request) {
+        if (request.studentId == null ||
+            request.aircraftId == null ||
+            request.instructorId == null ||
+            request.bookingId == null) {
+            throw HttpException.badRequest();
+        }
+        boolean started;
         try {
-            log.info("Calling FlightConditionsAgent for booking slot {}", slotId);
-            var sessionId = UUID.randomUUID().toString();
-            var agentJudgement = componentClient
-                    .forAgent()
-                    .inSession(sessionId)
-                    .method(FlightConditionsAgent::query)
-                    .invoke(slotId);
-
-            log.info("AgentJudgement: {}", agentJudgement);
-
-            if (!agentJudgement.meetsRequirements()) {
-                return HttpResponses.badRequest("Weather conditions are unsuitable. Cannot create booking.");
-            }
-        } catch (RateLimitException |
-                 ModelTimeoutException |
-                 ToolCallExecutionException ex) {
-            return HttpResponses.badRequest(ex.getMessage());
-        } catch (RuntimeException ex) {
-            return HttpResponses.internalServerError(ex.getMessage());
+            started = SlotId.hasStarted(slotId, LocalDateTime.now());
+        } catch (DateTimeParseException ex) {
+            throw HttpException.badRequest("invalid slot ID " + slotId);
         }
+        if (started) {
+            throw HttpException.badRequest("Timeslot has already started.");
+        }
+
+        return RouteMetrics.timeAsync("POST /flight/waitlist/{slotId}", () -> componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync()
+                .thenCompose(timeslot -> {
+                    if (timeslot.isBookable(request.studentId, request.aircraftId, request.instructorId)) {
+                        return CompletableFuture.completedFuture(
+                                HttpResponses.badRequest("Timeslot is bookable, book it instead."));
+                    }
+                    if (!timeslot.findBooking(request.bookingId).isEmpty() || timeslot.wasCanceled(request.bookingId)) {
+                        return CompletableFuture.completedFuture(
+                                HttpResponses.badRequest("Booking ID has already been used."));
+                    }
+                    return componentClient
+                            .forKeyValueEntity(slotId)
+                            .method(WaitlistEntity::join)
+                            .invokeAsync(new WaitlistEntity.Command.Join(
+                                    request.bookingId, request.studentId, request.aircraftId, request.instructorId))
+                            .thenApply(done -> HttpResponses.accepted());
+                }));
+    }
+
+    @Get("/waitlist/{slotId}")
+    public CompletionStage<Waitlist> getWaitlist(String slotId) {
+        return RouteMetrics.timeAsync("GET /flight/waitlist/{slotId}", () -> componentClient
+                .forKeyValueEntity(slotId)
+                .method(WaitlistEntity::getWaitlist)
+                .invokeAsync());
+    }
+
+    @Delete("/waitlist/{slotId}/{bookingId}")
+    public CompletionStage<HttpResponse> leaveWaitlist(String slotId, String bookingId) {
+        return RouteMetrics.timeAsync("DELETE /flight/waitlist/{slotId}/{bookingId}", () -> componentClient
+                .forKeyValueEntity(slotId)
+                .method(WaitlistEntity::leave)
+                .invokeAsync(bookingId)
+                .thenApply(done -> HttpResponses.ok()));
+    }
 
+    // Books `hours` consecutive slots, starting with `firstSlotId`, for the
+    // same three participants under one booking ID. The block is booked
+    // as a whole or not at all. The booking runs in the background; its
+    // progress can be followed with GET /block-bookings/{bookingId}.
+    @Post("/block-bookings/{bookingId}")
+    public CompletionStage<HttpResponse> createBlockBooking(String bookingId, BlockBookingRequest request) {
+        log.debug("Creating block booking {}: {}", bookingId, request);
+        Spans.tag(requestContext().tracing(), Spans.attributes(Spans.BOOKING_ID, bookingId));
+
+        if (request.studentId() == null ||
+            request.aircraftId() == null ||
+            request.instructorId() == null ||
+            request.firstSlotId() == null) {
+            throw HttpException.badRequest();
+        }
+        if (request.hours() < 1 || request.hours() > blockBookingMaxHours) {
+            throw HttpException.badRequest("hours must be between 1 and " + blockBookingMaxHours);
+        }
 
+        List<String> slotIds;
         try {
-            log.info("Booking slot {} for {}", bookingId, request);
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::bookSlot)
-                    .invoke(new BookingSlotEntity.Command.BookReservation(
-                            studentId, aircraftId, instructorId, bookingId
-                    ));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            slotIds = SlotId.consecutive(request.firstSlotId(), request.hours());
+        } catch (DateTimeParseException ex) {
+            throw HttpException.badRequest("invalid slot ID " + request.firstSlotId());
+        }
+
+        return RouteMetrics.timeAsync("POST /flight/block-bookings/{bookingId}", () -> componentClient
+                .forWorkflow(bookingId)
+                .method(BlockBookingWorkflow::start)
+                .invokeAsync(new BlockBookingWorkflow.Command.BookBlock(
+                        request.studentId(), request.aircraftId(), request.instructorId(), slotIds))
+                .thenApply(done -> HttpResponses.accepted()));
+    }
+
+    @Get("/block-bookings/{bookingId}")
+    public CompletionStage<BlockBookingWorkflow.State> getBlockBooking(String bookingId) {
+        return RouteMetrics.timeAsync("GET /flight/block-bookings/{bookingId}", () -> componentClient
+                .forWorkflow(bookingId)
+                .method(BlockBookingWorkflow::getState)
+                .invokeAsync());
+    }
+
+    // Checks the weather of every booked slot between the `from` and `to`
+    // dates again and cancels the bookings in the slots that no longer pass.
+    // The job runs in the background; its progress and summary can be
+    // followed with GET /weather-cancellations/{jobId}.
+    @Post("/weather-cancellations/{jobId}")
+    public CompletionStage<HttpResponse> startWeatherCancellation(String jobId) {
+        var range = slotRange();
+        var from = SlotId.parse(range.fromSlotId()).toLocalDate();
+        var to = SlotId.parse(range.toSlotId()).toLocalDate();
+        if (ChronoUnit.DAYS.between(from, to) + 1 > weatherCancellationMaxDays) {
+            throw HttpException.badRequest("date range must cover at most " + weatherCancellationMaxDays + " days");
         }
+        log.debug("Starting weather cancellation {} from {} to {}", jobId, from, to);
+
+        return RouteMetrics.timeAsync("POST /flight/weather-cancellations/{jobId}", () -> componentClient
+                .forWorkflow(jobId)
+                .method(WeatherCancellationWorkflow::start)
+                .invokeAsync(new WeatherCancellationWorkflow.Command.Start(range.fromSlotId(), range.toSlotId()))
+                .thenApply(done -> HttpResponses.accepted()));
+    }
+
+    @Get("/weather-cancellations/{jobId}")
+    public CompletionStage<WeatherCancellationWorkflow.State> getWeatherCancellation(String jobId) {
+        return RouteMetrics.timeAsync("GET /flight/weather-cancellations/{jobId}", () -> componentClient
+                .forWorkflow(jobId)
+                .method(WeatherCancellationWorkflow::getState)
+                .invokeAsync());
+    }
+
+    private static String limitedBy(ConditionsReport report) {
+        return report.limitingFactor() == null ? "" : " (" + report.limitingFactor() + ")";
+    }
 
-        return HttpResponses.created();
+    private HttpResponse bookingFailed(Throwable ex) {
+        var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        if (cause instanceof AgentUnavailableException unavailable) {
+            // the model is being throttled, tell the client when to come back
+            var retryAfter = Math.max(1, unavailable.retryAfter().toSeconds());
+            return HttpResponses.of(
+                            StatusCodes.TOO_MANY_REQUESTS,
+                            ContentTypes.TEXT_PLAIN_UTF8,
+                            cause.getMessage().getBytes(StandardCharsets.UTF_8))
+                    .addHeader(HttpHeader.parse("Retry-After", String.valueOf(retryAfter)));
+        }
+        if (cause instanceof RateLimitException ||
+            cause instanceof ModelTimeoutException ||
+            cause instanceof ToolCallExecutionException) {
+            return HttpResponses.badRequest(cause.getMessage());
+        }
+        log.error("Booking failed", cause);
+        return HttpResponses.internalServerError(cause.getMessage());
     }
 
     // Cancels an existing booking. Note that both the slot
-    // ID and the booking ID are required.
+    // ID and the booking ID are required. With `returnState=true` the reply
+    // carries the cancellation as the slot entity recorded it.
     @Delete("/bookings/{slotId}/{bookingId}")
     public HttpResponse cancelBooking(String slotId, String bookingId) {
-        log.info("Canceling booking id {}", bookingId);
+        log.debug("Canceling booking id {}", bookingId);
+        var tracing = requestContext().tracing();
+        var ids = Spans.attributes(Spans.SLOT_ID, slotId, Spans.BOOKING_ID, bookingId);
+        Spans.tag(tracing, ids);
 
+        BookingSlotEntity.BookingReply reply;
         // Add booking cancellation code
         try {
-            componentClient
-                    .forEventSourcedEntity(slotId)
-                    .method(BookingSlotEntity::cancelBooking)
-                    .invoke(bookingId);
+            reply = RouteMetrics.time("DELETE /flight/bookings/{slotId}/{bookingId}", () -> Spans
+                    .trace(tracing, "BookingSlotEntity.cancelBooking", ids, () -> componentClient
+                            .forEventSourcedEntity(slotId)
+                            .method(BookingSlotEntity::cancelBooking)
+                            .invoke(bookingId)));
         } catch (RuntimeException e) {
             throw new RuntimeException(e);
         }
 
-        return HttpResponses.ok();
+        return returnState() ? HttpResponses.ok(reply) : HttpResponses.ok();
+    }
+
+    // Whether the client asked for the authoritative outcome of a booking or
+    // cancellation in the reply
+    private boolean returnState() {
+        return requestContext().queryParams().getBoolean("returnState").orElse(false);
     }
 
     // Retrieves all slots in which a given participant has the supplied status.
     // Used to retrieve bookings and slots in which the participant is available
+    //
+    // The view is updated after bookings and cancellations, so it can lag
+    // behind them for a moment. Clients that need the outcome of their own
+    // booking or cancellation should ask for it in the reply, see
+    // returnState on createBooking and cancelBooking.
     @Get("/slots/{participantId}/{status}")
-    public SlotList slotsByStatus(String participantId, String status) {
-        SlotList slotList;
+    public CompletionStage<SlotList> slotsByStatus(String participantId, String status) {
         // Add view query
-        try {
-            slotList = componentClient
+        return RouteMetrics.timeAsync("GET /flight/slots/{participantId}/{status}", () -> componentClient
+                .forView()
+                .method(ParticipantSlotsView::getSlotsByParticipantAndStatus)
+                .invokeAsync(new ParticipantSlotsView.ParticipantStatusInput(participantId, status)));
+    }
+
+    // Retrieves a participant's slots with the supplied status between the
+    // `from` and `to` dates (YYYY-MM-DD, both inclusive) in slot order, one
+    // page at a time. Pass the `nextPageToken` of a page as `pageToken` to get
+    // the next one.
+    @Get("/schedule/{participantId}/{status}")
+    public CompletionStage<ParticipantSlotsView.SlotPage> schedule(String participantId, String status) {
+        var queryParams = requestContext().queryParams();
+        var pageSize = queryParams.getInteger("pageSize").orElse(schedulePageSize);
+        if (pageSize < 1 || pageSize > scheduleMaxPageSize) {
+            throw HttpException.badRequest("pageSize must be between 1 and " + scheduleMaxPageSize);
+        }
+
+        var input = scheduleInput(participantId, status, queryParams.getString("pageToken").orElse(""), pageSize);
+        return RouteMetrics.timeAsync("GET /flight/schedule/{participantId}/{status}", () -> componentClient
+                .forView()
+                .method(ParticipantSlotsView::getScheduleInRange)
+                .invokeAsync(input));
+    }
+
+    // Streams the same slots as `schedule` as server-sent events, without
+    // paging, so that large schedules aren't held in memory all at once
+    @Get("/schedule/{participantId}/{status}/stream")
+    public HttpResponse streamSchedule(String participantId, String status) {
+        var slots = componentClient
+                .forView()
+                .stream(ParticipantSlotsView::streamScheduleInRange)
+                .source(scheduleInput(participantId, status, "", 0));
+
+        return HttpResponses.serverSentEvents(slots);
+    }
+
+    private ParticipantSlotsView.ScheduleInput scheduleInput(
+            String participantId, String status, String pageToken, int pageSize) {
+        var range = slotRange();
+        return new ParticipantSlotsView.ScheduleInput(
+                participantId, status, range.fromSlotId(), range.toSlotId(), pageToken, pageSize);
+    }
+
+    // Finds the slots between the `from` and `to` dates in which a booking
+    // can be made for the `studentId`. With an `aircraftId` and an
+    // `instructorId` only slots in which all three are available are
+    // returned, otherwise slots in which any aircraft and any instructor are
+    // available along with the student.
+    @Get("/bookable-slots")
+    public CompletionStage<SlotAvailabilityView.SlotAvailabilityList> bookableSlots() {
+        var queryParams = requestContext().queryParams();
+        var studentId = queryParams.getString("studentId")
+                .orElseThrow(() -> HttpException.badRequest("studentId is required"));
+        var aircraftId = queryParams.getString("aircraftId");
+        var instructorId = queryParams.getString("instructorId");
+        var range = slotRange();
+
+        if (aircraftId.isPresent() && instructorId.isPresent()) {
+            return RouteMetrics.timeAsync("GET /flight/bookable-slots", () -> componentClient
                     .forView()
-                    .method(ParticipantSlotsView::getSlotsByParticipantAndStatus)
-                    .invoke(new ParticipantSlotsView.ParticipantStatusInput(participantId, status));
-        } catch (Exception e) { // TODO catch specific error of when participant not found
-            throw new RuntimeException(e);
+                    .method(SlotAvailabilityView::getBookableSlotsForTrio)
+                    .invokeAsync(new SlotAvailabilityView.TrioInput(
+                            studentId, aircraftId.get(), instructorId.get(), range.fromSlotId(), range.toSlotId())));
+        }
+        if (aircraftId.isPresent() || instructorId.isPresent()) {
+            throw HttpException.badRequest("aircraftId and instructorId must be given together");
+        }
+        return RouteMetrics.timeAsync("GET /flight/bookable-slots", () -> componentClient
+                .forView()
+                .method(SlotAvailabilityView::getBookableSlotsForStudent)
+                .invokeAsync(new SlotAvailabilityView.StudentInput(studentId, range.fromSlotId(), range.toSlotId())));
+    }
+
+    // Live updates of a participant's slots as server-sent events. The stream
+    // starts with the current state of every slot of the participant and then
+    // sends a slot again whenever it changes, so a calendar can stay current
+    // without polling.
+    @Get("/live/slots/{participantId}")
+    public HttpResponse liveSlots(String participantId) {
+        return HttpResponses.serverSentEvents(componentClient
+                .forView()
+                .stream(ParticipantSlotsView::streamParticipantSlots)
+                .source(participantId));
+    }
+
+    // Live updates of the participants available in the slots between the
+    // `from` and `to` dates, as server-sent events. Like the participant
+    // stream, it starts with the current state of the slots.
+    @Get("/live/availability")
+    public HttpResponse liveAvailability() {
+        var range = slotRange();
+        return HttpResponses.serverSentEvents(componentClient
+                .forView()
+                .stream(SlotAvailabilityView::streamSlotsInRange)
+                .source(new SlotAvailabilityView.SlotRangeInput(range.fromSlotId(), range.toSlotId())));
+    }
+
+    // The slots from the first hour of the `from` date to the last hour of the
+    // `to` date given as query parameters
+    private SlotRange slotRange() {
+        var queryParams = requestContext().queryParams();
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(queryParams.getString("from").orElseThrow());
+            to = LocalDate.parse(queryParams.getString("to").orElseThrow());
+        } catch (DateTimeParseException | NoSuchElementException ex) {
+            throw HttpException.badRequest("from and to must be dates in the format YYYY-MM-DD");
+        }
+        if (from.isAfter(to)) {
+            throw HttpException.badRequest("from must not be after to");
         }
 
-        return slotList;
+        return new SlotRange(SlotId.of(from.atStartOfDay()), SlotId.of(to.atTime(23, 0)));
+    }
+
+    private record SlotRange(String fromSlotId, String toSlotId) {
+    }
+
+    // A participant's available and booked slots in a month (YYYY-MM), read
+    // from the participant's calendar entity. Requires calendars to be enabled,
+    // see flight.participant-state; a calendar only holds what happened after
+    // they were enabled, unless it has been backfilled.
+    @Get("/calendar/{participantId}/{month}")
+    public CompletionStage<ParticipantCalendarEntity.CalendarSlots> calendar(String participantId, String month) {
+        requireCalendars();
+        var yearMonth = yearMonth(month);
+
+        return RouteMetrics.timeAsync("GET /flight/calendar/{participantId}/{month}", () -> componentClient
+                .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, yearMonth))
+                .method(ParticipantCalendarEntity::getCalendar)
+                .invokeAsync());
+    }
+
+    // Fills a participant's calendar for a month (YYYY-MM) from the
+    // participant slots view, for calendars enabled after the participant's
+    // availability and bookings were recorded. Needs both slot entities and
+    // calendars, see flight.participant-state. Hours the calendar already
+    // has are left as they are, so it can be run again, e.g. for events that
+    // raced with an earlier run. Replies with the calendar afterwards.
+    @Post("/calendar/{participantId}/{month}/backfill")
+    public CompletionStage<ParticipantCalendarEntity.CalendarSlots> backfillCalendar(
+            String participantId, String month) {
+        requireCalendars();
+        if (!slotEntities) {
+            throw HttpException.badRequest(
+                    "Calendars are backfilled from participant slot entities, which are disabled "
+                            + "(flight.participant-state.slot-entities).");
+        }
+        var yearMonth = yearMonth(month);
+        var calendarId = ParticipantCalendar.calendarId(participantId, yearMonth);
+        var range = new SlotRange(
+                SlotId.of(yearMonth.atDay(1).atStartOfDay()), SlotId.of(yearMonth.atEndOfMonth().atTime(23, 0)));
+        log.info("Backfilling calendar {}", calendarId);
+
+        return RouteMetrics.timeAsync("POST /flight/calendar/{participantId}/{month}/backfill", () ->
+                backfill(calendarId, participantId, ParticipantCalendar.AVAILABLE, range, "")
+                        .thenCompose(__ -> backfill(calendarId, participantId, ParticipantCalendar.BOOKED, range, ""))
+                        .thenCompose(__ -> componentClient
+                                .forEventSourcedEntity(calendarId)
+                                .method(ParticipantCalendarEntity::getCalendar)
+                                .invokeAsync()));
+    }
+
+    // Records the participant's view rows with the status, a page at a time
+    // and one row after the other
+    private CompletionStage<Done> backfill(
+            String calendarId, String participantId, String status, SlotRange range, String pageToken) {
+        return componentClient
+                .forView()
+                .method(ParticipantSlotsView::getScheduleInRange)
+                .invokeAsync(new ParticipantSlotsView.ScheduleInput(
+                        participantId, status, range.fromSlotId(), range.toSlotId(), pageToken, scheduleMaxPageSize))
+                .thenCompose(page -> {
+                    CompletionStage<Done> recorded = CompletableFuture.completedFuture(Done.getInstance());
+                    for (var row : page.slots()) {
+                        recorded = recorded.thenCompose(__ -> backfill(calendarId, row));
+                    }
+                    if (!page.hasMore()) {
+                        return recorded;
+                    }
+                    return recorded.thenCompose(__ ->
+                            backfill(calendarId, participantId, status, range, page.nextPageToken()));
+                });
+    }
+
+    // A booked hour is marked available first, as only available hours can
+    // be booked
+    private CompletionStage<Done> backfill(String calendarId, ParticipantSlotsView.SlotRow row) {
+        var participantType = ParticipantType.valueOf(row.participantType());
+        var marked = componentClient
+                .forEventSourcedEntity(calendarId)
+                .method(ParticipantCalendarEntity::markAvailable)
+                .invokeAsync(new ParticipantCalendarEntity.Command.MarkAvailable(
+                        row.slotId(), row.participantId(), participantType));
+        if (!ParticipantCalendar.BOOKED.equals(row.status())) {
+            return marked;
+        }
+        return marked.thenCompose(__ -> componentClient
+                .forEventSourcedEntity(calendarId)
+                .method(ParticipantCalendarEntity::book)
+                .invokeAsync(new ParticipantCalendarEntity.Command.Book(
+                        row.slotId(), row.participantId(), participantType, row.bookingId())));
+    }
+
+    private void requireCalendars() {
+        if (!calendars) {
+            throw HttpException.badRequest(
+                    "Participant calendars are disabled (flight.participant-state.calendars).");
+        }
+    }
+
+    private static YearMonth yearMonth(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException ex) {
+            throw HttpException.badRequest("month must be in the format YYYY-MM");
+        }
+    }
+
+    // The first `count` hours between the `from` and `to` dates at which all
+    // the `participantIds` (comma separated) are available and not booked,
+    // e.g. to offer a student, an aircraft and an instructor times that suit
+    // all three. Built from the participants' calendars, so calendars must be
+    // enabled, see flight.participant-state.
+    @Get("/common-free-hours")
+    public CompletionStage<CommonFreeHours> commonFreeHours() {
+        requireCalendars();
+        var queryParams = requestContext().queryParams();
+        var participantIds = queryParams.getString("participantIds").stream()
+                .flatMap(ids -> Arrays.stream(ids.split(",")))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (participantIds.isEmpty() || participantIds.size() > commonFreeHoursMaxParticipants) {
+            throw HttpException.badRequest(
+                    "participantIds must list between 1 and " + commonFreeHoursMaxParticipants + " participants");
+        }
+        var count = queryParams.getInteger("count").orElse(commonFreeHoursDefaultCount);
+        if (count < 1) {
+            throw HttpException.badRequest("count must be at least 1");
+        }
+        var range = slotRange();
+        var from = SlotId.parse(range.fromSlotId()).toLocalDate();
+        var to = SlotId.parse(range.toSlotId()).toLocalDate();
+        if (ChronoUnit.DAYS.between(from, to) + 1 > commonFreeHoursMaxDays) {
+            throw HttpException.badRequest("date range must cover at most " + commonFreeHoursMaxDays + " days");
+        }
+
+        return RouteMetrics.timeAsync("GET /flight/common-free-hours", () -> {
+            // one calendar read per participant and month, all at once
+            var calendars = new ArrayList<CompletableFuture<Map.Entry<String, ParticipantCalendarEntity.CalendarSlots>>>();
+            for (var month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+                for (var participantId : participantIds) {
+                    calendars.add(componentClient
+                            .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, month))
+                            .method(ParticipantCalendarEntity::getCalendar)
+                            .invokeAsync()
+                            .thenApply(calendar -> Map.entry(participantId, calendar))
+                            .toCompletableFuture());
+                }
+            }
+
+            return CompletableFuture
+                    .allOf(calendars.toArray(CompletableFuture[]::new))
+                    .thenApply(__ -> {
+                        var index = new AvailabilityIndex();
+                        calendars.forEach(calendar ->
+                                index.add(calendar.join().getKey(), calendar.join().getValue().slots()));
+                        return new CommonFreeHours(index.firstCommonFreeHours(
+                                participantIds, range.fromSlotId(), range.toSlotId(), count));
+                    });
+        });
+    }
+
+    public record CommonFreeHours(List<String> slotIds) {
     }
 
     // Returns the internal availability state for a given slot
     @Get("/availability/{slotId}")
-    public Timeslot getSlot(String slotId) {
+    public SlotAvailability getSlot(String slotId) {
 
-        var timeslot = new Timeslot(Collections.emptySet(),
-                Collections.emptySet());
+        Timeslot timeslot;
 
         // Add entity state request
         try {
-            timeslot = componentClient
+            timeslot = RouteMetrics.time("GET /flight/availability/{slotId}", () -> componentClient
                     .forEventSourcedEntity(slotId)
                     .method(BookingSlotEntity::getSlot)
-                    .invoke();
+                    .invoke());
         } catch (RuntimeException e) { // TODO: catch not found
             throw new RuntimeException(e);
         }
 
-        return timeslot;
+        return new SlotAvailability(timeslot.bookings(), timeslot.available());
     }
 
     // Indicates that the supplied participant is available for booking
@@ -175,14 +698,16 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
             throw HttpException.badRequest("invalid participant type");
         }
 
-        log.info("Marking timeslot available for entity {}", slotId);
+        log.debug("Marking timeslot available for entity {}", slotId);
+        Spans.tag(requestContext().tracing(), Spans.attributes(
+                Spans.SLOT_ID, slotId, Spans.PARTICIPANT_ID, participantId));
 
         // Add entity client to mark slot available
         try {
-            componentClient
+            RouteMetrics.time("POST /flight/availability/{slotId}", () -> componentClient
                     .forEventSourcedEntity(slotId)
                     .method(BookingSlotEntity::markSlotAvailable)
-                    .invoke(new BookingSlotEntity.Command.MarkSlotAvailable(new Participant(participantId, participantType)));
+                    .invoke(new BookingSlotEntity.Command.MarkSlotAvailable(new Participant(participantId, participantType))));
         } catch (RuntimeException ex) {
             throw new RuntimeException(ex.getMessage());
         }
@@ -201,12 +726,15 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
             throw HttpException.badRequest("invalid participant type");
         }
 
+        Spans.tag(requestContext().tracing(), Spans.attributes(
+                Spans.SLOT_ID, slotId, Spans.PARTICIPANT_ID, request.participantId));
+
         // Add code to unmark slot as available
         try {
-            componentClient
+            RouteMetrics.time("DELETE /flight/availability/{slotId}", () -> componentClient
                     .forEventSourcedEntity(slotId)
                     .method(BookingSlotEntity::unmarkSlotAvailable)
-                    .invoke(new BookingSlotEntity.Command.UnmarkSlotAvailable(new Participant(request.participantId, participantType)));
+                    .invoke(new BookingSlotEntity.Command.UnmarkSlotAvailable(new Participant(request.participantId, participantType))));
         } catch (RuntimeException ex) { // TODO: change to specific exception e.g. ParticipantNotFound
             throw new RuntimeException(ex.getMessage());
         }
@@ -214,13 +742,144 @@ public class FlightEndpoint extends AbstractHttpEndpoint {
         return HttpResponses.ok();
     }
 
+    // Marks a participant available in many slots at once. The slots are
+    // given as a list of slot IDs, and/or as a date range plus the hours of
+    // the day to mark on each date. Replies with the outcome for each slot.
+    @Post("/availability")
+    public CompletionStage<BulkAvailabilityResponse> markAvailableInBulk(BulkAvailabilityRequest request) {
+        var participant = new Participant(request.participantId(), parseParticipantType(request.participantType()));
+        var slotIds = bulkSlotIds(request);
+        log.debug("Marking {} timeslots available for participant {}", slotIds.size(), participant.id());
+
+        return RouteMetrics.timeAsync("POST /flight/availability", () -> forEachSlot(slotIds, slotId -> componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::markSlotAvailable)
+                .invokeAsync(new BookingSlotEntity.Command.MarkSlotAvailable(participant))));
+    }
+
+    // Unmarks a participant as available in many slots at once. Slots are
+    // selected the same way as for marking them available.
+    @Delete("/availability")
+    public CompletionStage<BulkAvailabilityResponse> unmarkAvailableInBulk(BulkAvailabilityRequest request) {
+        var participant = new Participant(request.participantId(), parseParticipantType(request.participantType()));
+        var slotIds = bulkSlotIds(request);
+        log.debug("Unmarking {} timeslots available for participant {}", slotIds.size(), participant.id());
+
+        return RouteMetrics.timeAsync("DELETE /flight/availability", () -> forEachSlot(slotIds, slotId -> componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::unmarkSlotAvailable)
+                .invokeAsync(new BookingSlotEntity.Command.UnmarkSlotAvailable(participant))));
+    }
+
+    // Runs the command for every slot with at most `bulkParallelism` commands
+    // in flight. A failing slot is reported in its result and doesn't stop the
+    // other slots.
+    private CompletionStage<BulkAvailabilityResponse> forEachSlot(
+            List<String> slotIds, Function<String, CompletionStage<Done>> command) {
+        return Source.from(slotIds)
+                .mapAsync(bulkParallelism, slotId -> command.apply(slotId)
+                        .thenApply(done -> new SlotResult(slotId, true, null))
+                        .exceptionally(ex -> {
+                            var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                            log.warn("Bulk availability update failed for slot {}", slotId, cause);
+                            return new SlotResult(slotId, false, cause.getMessage());
+                        }))
+                .runWith(Sink.seq(), materializer)
+                .thenApply(BulkAvailabilityResponse::new);
+    }
+
+    private List<String> bulkSlotIds(BulkAvailabilityRequest request) {
+        var slotIds = new LinkedHashSet<String>();
+
+        if (request.slotIds() != null) {
+            for (String slotId : request.slotIds()) {
+                try {
+                    SlotId.parse(slotId);
+                } catch (DateTimeParseException ex) {
+                    throw HttpException.badRequest("invalid slot ID " + slotId);
+                }
+                slotIds.add(slotId);
+            }
+        }
+
+        if (request.from() != null || request.to() != null || request.hours() != null) {
+            LocalDate from;
+            LocalDate to;
+            try {
+                from = LocalDate.parse(request.from());
+                to = LocalDate.parse(request.to());
+            } catch (DateTimeParseException | NullPointerException ex) {
+                throw HttpException.badRequest("from and to must be dates in the format YYYY-MM-DD");
+            }
+            if (request.hours() == null || request.hours().isEmpty() ||
+                request.hours().stream().anyMatch(hour -> hour == null || hour < 0 || hour > 23)) {
+                throw HttpException.badRequest("hours must be a list of hours of the day (0-23)");
+            }
+            var days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days < 1) {
+                throw HttpException.badRequest("from must not be after to");
+            }
+            if (days * request.hours().size() > bulkMaxSlots) {
+                throw HttpException.badRequest("date range must cover at most " + bulkMaxSlots + " slots");
+            }
+            slotIds.addAll(SlotId.forHours(from, to, request.hours()));
+        }
+
+        if (slotIds.isEmpty()) {
+            throw HttpException.badRequest("no slots given");
+        }
+        if (slotIds.size() > bulkMaxSlots) {
+            throw HttpException.badRequest("at most " + bulkMaxSlots + " slots can be updated at once");
+        }
+        return List.copyOf(slotIds);
+    }
+
+    private ParticipantType parseParticipantType(String participantType) {
+        try {
+            return ParticipantType.valueOf(participantType.trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            log.warn("Bad participant type {}", participantType);
+            throw HttpException.badRequest("invalid participant type");
+        }
+    }
+
     // Public API representation of a booking request
     public record BookingRequest(
             String studentId, String aircraftId, String instructorId, String bookingId) {
     }
 
+    // Public API representation of a block booking request
+    public record BlockBookingRequest(
+            String studentId, String aircraftId, String instructorId, String firstSlotId, int hours) {
+    }
+
+    // Public API representation of a slot's availability state. This keeps the
+    // public shape independent of how Timeslot is stored.
+    public record SlotAvailability(Set<Timeslot.Booking> bookings, Set<Participant> available) {
+    }
+
     // Public API representation of an availability mark/unmark request
     public record AvailabilityRequest(String participantId, String participantType) {
     }
 
+    // Public API representation of a bulk availability mark/unmark request.
+    // `from` and `to` are dates (YYYY-MM-DD) and `hours` the hours of the day
+    // (0-23) to include on each date; either or both of `slotIds` and the
+    // date range can be given.
+    public record BulkAvailabilityRequest(
+            String participantId,
+            String participantType,
+            List<String> slotIds,
+            String from,
+            String to,
+            List<Integer> hours) {
+    }
+
+    // Public API representation of the outcome of a bulk availability request
+    public record BulkAvailabilityResponse(List<SlotResult> results) {
+    }
+
+    public record SlotResult(String slotId, boolean success, String error) {
+    }
+
 }
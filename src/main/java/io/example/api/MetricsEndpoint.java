@@ -0,0 +1,40 @@
+package io.example.api;
+
+import akka.javasdk.annotations.Acl;
+import akka.javasdk.annotations.http.Get;
+import akka.javasdk.annotations.http.HttpEndpoint;
+import akka.javasdk.http.AbstractHttpEndpoint;
+import io.example.application.AgentAdmissionControl;
+import io.example.application.LatencyHistogram;
+import io.example.application.PipelineMetrics;
+
+import java.util.Map;
+
+// Latency histograms for the booking-to-view pipeline, see PipelineMetrics,
+// and for each HTTP route, see RouteMetrics, and the state of the admission
+// control in front of the agent
+@Acl(allow = @Acl.Matcher(principal = Acl.Principal.INTERNET))
+@HttpEndpoint("/metrics")
+public class MetricsEndpoint extends AbstractHttpEndpoint {
+
+    private final AgentAdmissionControl admissionControl;
+
+    public MetricsEndpoint(AgentAdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Get("/pipeline")
+    public Map<String, LatencyHistogram.Snapshot> pipeline() {
+        return PipelineMetrics.snapshot();
+    }
+
+    @Get("/routes")
+    public Map<String, LatencyHistogram.Snapshot> routes() {
+        return RouteMetrics.snapshot();
+    }
+
+    @Get("/agent-admission")
+    public AgentAdmissionControl.Metrics agentAdmission() {
+        return admissionControl.metrics();
+    }
+}
@@ -0,0 +1,52 @@
+package io.example.api;
+
+import io.example.application.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+// Latency of each HTTP route, from the request reaching the endpoint method
+// until its response (or failure) is ready. Keyed by method and path
+// template, e.g. "POST /flight/bookings/{slotId}". Streaming routes aren't
+// timed, they stay open for as long as the client listens.
+final class RouteMetrics {
+
+    private static final Map<String, LatencyHistogram> ROUTES = new ConcurrentHashMap<>();
+
+    private RouteMetrics() {
+    }
+
+    static Map<String, LatencyHistogram.Snapshot> snapshot() {
+        var snapshot = new TreeMap<String, LatencyHistogram.Snapshot>();
+        ROUTES.forEach((route, histogram) -> snapshot.put(route, histogram.snapshot()));
+        return snapshot;
+    }
+
+    static <T> CompletionStage<T> timeAsync(String route, Supplier<CompletionStage<T>> handler) {
+        var started = System.nanoTime();
+        try {
+            return handler.get().whenComplete((result, ex) -> record(route, started));
+        } catch (RuntimeException ex) {
+            record(route, started);
+            throw ex;
+        }
+    }
+
+    static <T> T time(String route, Supplier<T> handler) {
+        var started = System.nanoTime();
+        try {
+            return handler.get();
+        } finally {
+            record(route, started);
+        }
+    }
+
+    private static void record(String route, long started) {
+        ROUTES.computeIfAbsent(route, r -> new LatencyHistogram())
+                .record(Duration.ofNanos(System.nanoTime() - started));
+    }
+}
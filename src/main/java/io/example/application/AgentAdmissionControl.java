@@ -0,0 +1,229 @@
+package io.example.application;
+
+import akka.javasdk.agent.RateLimitException;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Sits in front of every call to the model so that a throttling provider
+// slows bookings down instead of taking them all down with it.
+//
+// At most `max-concurrent` calls run at once and up to `max-queued` more
+// wait for a free spot; anything beyond that is shed. After
+// `failure-threshold` rate-limited calls in a row the breaker opens and calls
+// are shed for `open-duration`. After that, `half-open-trial-calls` calls are
+// let through to probe the provider: one success closes the breaker again,
+// another rate limit opens it again.
+//
+// Shed calls fail with an AgentUnavailableException that says when to retry.
+public class AgentAdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentAdmissionControl.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public record Settings(
+            int maxConcurrent,
+            int maxQueued,
+            int failureThreshold,
+            Duration openDuration,
+            int halfOpenTrialCalls,
+            Duration queueFullRetryAfter) {
+
+        public static Settings fromConfig(Config config) {
+            var admission = config.getConfig("flight-conditions.agent-admission");
+            return new Settings(
+                    admission.getInt("max-concurrent"),
+                    admission.getInt("max-queued"),
+                    admission.getInt("failure-threshold"),
+                    admission.getDuration("open-duration"),
+                    admission.getInt("half-open-trial-calls"),
+                    admission.getDuration("queue-full-retry-after"));
+        }
+    }
+
+    public record Metrics(
+            State state,
+            int inFlight,
+            int queued,
+            long admitted,
+            long shed,
+            long rateLimited,
+            LatencyHistogram.Snapshot queueWait,
+            LatencyHistogram.Snapshot callLatency) {
+    }
+
+    private final Settings settings;
+    private final ArrayDeque<Waiting> queue = new ArrayDeque<>();
+
+    // guarded by `this`
+    private State state = State.CLOSED;
+    private int inFlight;
+    private int trialsInFlight;
+    private int consecutiveRateLimits;
+    private long openedAt;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram callLatency = new LatencyHistogram();
+
+    private record Waiting(Runnable start, CompletableFuture<?> result, long since) {
+    }
+
+    public AgentAdmissionControl(Settings settings) {
+        this.settings = settings;
+    }
+
+    public <T> CompletionStage<T> call(Supplier<CompletionStage<T>> call) {
+        var result = new CompletableFuture<T>();
+        Runnable start;
+
+        synchronized (this) {
+            if (state == State.OPEN) {
+                var openFor = Duration.ofNanos(openedAt + settings.openDuration().toNanos() - System.nanoTime());
+                if (openFor.isPositive()) {
+                    return shed(result, openFor);
+                }
+                logger.info("Probing the model provider again");
+                state = State.HALF_OPEN;
+                trialsInFlight = 0;
+            }
+
+            if (state == State.HALF_OPEN) {
+                if (trialsInFlight >= settings.halfOpenTrialCalls()) {
+                    return shed(result, settings.openDuration());
+                }
+                trialsInFlight++;
+                inFlight++;
+                start = () -> run(call, result, true);
+            } else if (inFlight < settings.maxConcurrent()) {
+                inFlight++;
+                start = () -> run(call, result, false);
+            } else if (queue.size() < settings.maxQueued()) {
+                queue.add(new Waiting(() -> run(call, result, false), result, System.nanoTime()));
+                return result;
+            } else {
+                return shed(result, settings.queueFullRetryAfter());
+            }
+        }
+
+        start.run();
+        return result;
+    }
+
+    public synchronized Metrics metrics() {
+        return new Metrics(
+                state,
+                inFlight,
+                queue.size(),
+                admitted.sum(),
+                shed.sum(),
+                rateLimited.sum(),
+                queueWait.snapshot(),
+                callLatency.snapshot());
+    }
+
+    private <T> void run(Supplier<CompletionStage<T>> call, CompletableFuture<T> result, boolean trial) {
+        admitted.increment();
+        var started = System.nanoTime();
+        CompletionStage<T> stage;
+        try {
+            stage = call.get();
+        } catch (RuntimeException ex) {
+            stage = CompletableFuture.failedFuture(ex);
+        }
+        stage.whenComplete((value, ex) -> {
+            callLatency.record(Duration.ofNanos(System.nanoTime() - started));
+            completed(trial, ex);
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void completed(boolean trial, Throwable ex) {
+        var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+        var isRateLimit = cause instanceof RateLimitException;
+        if (isRateLimit) {
+            rateLimited.increment();
+        }
+
+        var next = new ArrayList<Runnable>();
+        var dropped = new ArrayList<Waiting>();
+        synchronized (this) {
+            inFlight--;
+            if (trial) {
+                trialsInFlight--;
+            }
+
+            if (isRateLimit) {
+                consecutiveRateLimits++;
+                if (trial || (state == State.CLOSED && consecutiveRateLimits >= settings.failureThreshold())) {
+                    logger.warn("Model provider is rate limiting, not calling it for {}", settings.openDuration());
+                    state = State.OPEN;
+                    openedAt = System.nanoTime();
+                }
+            } else if (ex == null) {
+                consecutiveRateLimits = 0;
+                if (trial && state == State.HALF_OPEN) {
+                    logger.info("Model provider has recovered");
+                    state = State.CLOSED;
+                }
+            }
+
+            if (state == State.OPEN) {
+                dropped.addAll(queue);
+                queue.clear();
+            } else if (state == State.CLOSED) {
+                while (inFlight < settings.maxConcurrent() && !queue.isEmpty()) {
+                    var waiting = queue.poll();
+                    queueWait.record(Duration.ofNanos(System.nanoTime() - waiting.since()));
+                    inFlight++;
+                    next.add(waiting.start());
+                }
+            }
+        }
+
+        next.forEach(Runnable::run);
+        dropped.forEach(waiting -> {
+            shed.increment();
+            waiting.result().completeExceptionally(new AgentUnavailableException(settings.openDuration()));
+        });
+    }
+
+    private <T> CompletionStage<T> shed(CompletableFuture<T> result, Duration retryAfter) {
+        shed.increment();
+        result.completeExceptionally(new AgentUnavailableException(retryAfter));
+        return result;
+    }
+
+    // The model can't be called right now; try again after `retryAfter`
+    public static class AgentUnavailableException extends RuntimeException {
+
+        private final Duration retryAfter;
+
+        public AgentUnavailableException(Duration retryAfter) {
+            super("Weather checks are temporarily unavailable, retry after " + retryAfter.toSeconds() + "s");
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration retryAfter() {
+            return retryAfter;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.workflow.Workflow;
+import akka.javasdk.workflow.WorkflowSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+// Books a run of consecutive slots for the same student, aircraft and
+// instructor under a single booking ID. The workflow ID is the booking ID.
+//
+// The availability and weather of every slot are checked at the same time
+// first, and nothing is booked unless all slots pass. The slots are then
+// booked, again all at once. If any of them can't be booked, the slots that
+// were booked are canceled again, so the block is either booked as a whole or
+// not at all.
+//
+// Canceling a booking makes its participants available in the slot again
+// (see Timeslot.cancelBooking), so after compensation the student, aircraft
+// and instructor are available in every slot of the block as they were
+// before. Booking again under the same ID with the same participants succeeds
+// without booking twice (see BookingSlotEntity.bookSlot), and a slot is only
+// canceled while it is booked under the ID for this block's trio, which keeps
+// the steps safe to retry. A booking ID that is already used in a slot for
+// other participants fails the booking, and that booking is left alone.
+//
+// If the slots can't be checked, or the compensation still fails after its
+// retries, the workflow ends as FAILED. In the latter case some slots may
+// still be booked under the booking ID and are logged as such.
+@Component(id = "block-booking")
+public class BlockBookingWorkflow extends Workflow<BlockBookingWorkflow.State> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockBookingWorkflow.class);
+
+    private final ComponentClient componentClient;
+    private final FlightConditionsChecker conditionsChecker;
+
+    public BlockBookingWorkflow(ComponentClient componentClient, FlightConditionsChecker conditionsChecker) {
+        this.componentClient = componentClient;
+        this.conditionsChecker = conditionsChecker;
+    }
+
+    @Override
+    public WorkflowSettings settings() {
+        return WorkflowSettings.builder()
+                // weather checks may have to ask the agent
+                .stepTimeout(BlockBookingWorkflow::checkSlotsStep, Duration.ofMinutes(1))
+                .defaultStepTimeout(Duration.ofSeconds(20))
+                .stepRecovery(
+                        BlockBookingWorkflow::checkSlotsStep,
+                        maxRetries(2).failoverTo(BlockBookingWorkflow::failStep))
+                .stepRecovery(
+                        BlockBookingWorkflow::bookSlotsStep,
+                        maxRetries(2).failoverTo(BlockBookingWorkflow::compensateStep))
+                .stepRecovery(
+                        BlockBookingWorkflow::compensateStep,
+                        maxRetries(3).failoverTo(BlockBookingWorkflow::failStep))
+                .build();
+    }
+
+    public Effect<Done> start(Command.BookBlock cmd) {
+        if (currentState() != null) {
+            return effects().error("Block booking already exists.");
+        }
+        if (cmd.slotIds() == null || cmd.slotIds().isEmpty()) {
+            return effects().error("No slots to book.");
+        }
+
+        var state = new State(
+                commandContext().workflowId(),
+                cmd.studentId(),
+                cmd.aircraftId(),
+                cmd.instructorId(),
+                List.copyOf(cmd.slotIds()),
+                List.of(),
+                Status.CHECKING,
+                null);
+
+        logger.info("Starting block booking {} for slots {}", state.bookingId(), state.slotIds());
+        return effects()
+                .updateState(state)
+                .transitionTo(BlockBookingWorkflow::checkSlotsStep)
+                .thenReply(Done.getInstance());
+    }
+
+    public ReadOnlyEffect<State> getState() {
+        if (currentState() == null) {
+            return effects().error("Block booking does not exist.");
+        }
+        return effects().reply(currentState());
+    }
+
+    private StepEffect checkSlotsStep() {
+        var state = currentState();
+        var checks = state.slotIds().stream()
+                .map(slotId -> checkSlot(state, slotId).toCompletableFuture())
+                .toList();
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).join();
+
+        var rejected = checks.stream()
+                .map(CompletableFuture::join)
+                .filter(rejection -> rejection != null)
+                .toList();
+        if (!rejected.isEmpty()) {
+            logger.info("Block booking {} rejected: {}", state.bookingId(), rejected);
+            return stepEffects()
+                    .updateState(state.failed(String.join(" ", rejected)))
+                    .thenEnd();
+        }
+
+        return stepEffects()
+                .updateState(state.withStatus(Status.BOOKING))
+                .thenTransitionTo(BlockBookingWorkflow::bookSlotsStep);
+    }
+
+    // Completes with the reason the slot can't be booked, or null if it can
+    private CompletionStage<String> checkSlot(State state, String slotId) {
+        var bookable = componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync()
+                .thenApply(timeslot ->
+                        timeslot.isBookable(state.studentId(), state.aircraftId(), state.instructorId()));
+
+        return bookable.thenCombine(conditionsChecker.check(slotId), (isBookable, conditions) -> {
+            if (!isBookable) {
+                return "Timeslot " + slotId + " is not bookable.";
+            }
+            if (!Boolean.TRUE.equals(conditions.meetsRequirements())) {
+                var limitedBy = conditions.limitingFactor() == null ? "" : " (" + conditions.limitingFactor() + ")";
+                return "Weather conditions are unsuitable for timeslot " + slotId + limitedBy + ".";
+            }
+            return null;
+        });
+    }
+
+    private StepEffect bookSlotsStep() {
+        var state = currentState();
+        var bookings = state.slotIds().stream()
+                .map(slotId -> bookSlot(state, slotId)
+                        .handle((done, ex) -> {
+                            if (ex != null) {
+                                var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                                logger.warn("Booking slot {} of block booking {} failed", slotId, state.bookingId(), cause);
+                                return slotId + ": " + cause.getMessage();
+                            }
+                            return null;
+                        })
+                        .toCompletableFuture())
+                .toList();
+        CompletableFuture.allOf(bookings.toArray(CompletableFuture[]::new)).join();
+
+        var booked = new ArrayList<String>();
+        var failures = new ArrayList<String>();
+        for (int i = 0; i < bookings.size(); i++) {
+            var failure = bookings.get(i).join();
+            if (failure == null) {
+                booked.add(state.slotIds().get(i));
+            } else {
+                failures.add(failure);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            return stepEffects()
+                    .updateState(state.withBooked(booked).canceling("Could not book " + String.join(", ", failures)))
+                    .thenTransitionTo(BlockBookingWorkflow::compensateStep);
+        }
+
+        logger.info("Block booking {} booked slots {}", state.bookingId(), booked);
+        return stepEffects()
+                .updateState(state.withBooked(booked).withStatus(Status.BOOKED))
+                .thenEnd();
+    }
+
+    // Slots booked by an earlier attempt of this step reply with the existing
+    // booking
+    private CompletionStage<Done> bookSlot(State state, String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::bookSlot)
+                .invokeAsync(new BookingSlotEntity.Command.BookReservation(
+                        state.studentId(), state.aircraftId(), state.instructorId(), state.bookingId()))
+                .thenApply(reply -> Done.getInstance());
+    }
+
+    // Cancels every slot that is booked for the block, which puts the trio
+    // back among the slot's available participants. The slots the
+    // bookSlotsStep didn't get to record (when it timed out or failed) are
+    // checked too.
+    private StepEffect compensateStep() {
+        var state = currentState();
+        logger.info("Canceling block booking {}", state.bookingId());
+
+        var cancellations = state.slotIds().stream()
+                .map(slotId -> cancelSlot(state, slotId).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(cancellations).join();
+
+        var failure = state.failure() == null ? "Could not book all slots." : state.failure();
+        return stepEffects()
+                .updateState(state.withBooked(List.of()).failed(failure))
+                .thenEnd();
+    }
+
+    // Only a booking of this block's trio is canceled; another booking under
+    // the same ID belongs to someone else
+    private CompletionStage<Done> cancelSlot(State state, String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync()
+                .thenCompose(timeslot -> {
+                    if (!timeslot.isBookedAs(
+                            state.bookingId(), state.studentId(), state.aircraftId(), state.instructorId())) {
+                        return CompletableFuture.completedFuture(Done.getInstance());
+                    }
+                    return componentClient
+                            .forEventSourcedEntity(slotId)
+                            .method(BookingSlotEntity::cancelBooking)
+                            .invokeAsync(state.bookingId())
+                            .thenApply(reply -> Done.getInstance());
+                });
+    }
+
+    // Terminal step for when checking the slots or canceling them again keeps
+    // failing
+    private StepEffect failStep() {
+        var state = currentState();
+        String failure;
+        if (state.status() == Status.CHECKING) {
+            logger.error("Block booking {} failed checking slots {}", state.bookingId(), state.slotIds());
+            failure = "Could not check the slots.";
+        } else {
+            // compensation reached from the bookSlotsStep or its recovery
+            logger.error("Block booking {} could not be canceled, slots {} may still be booked",
+                    state.bookingId(), state.slotIds());
+            failure = "Could not book all slots, and could not cancel the slots that were booked.";
+        }
+        return stepEffects()
+                .updateState(state.failed(failure))
+                .thenEnd();
+    }
+
+    public enum Status {
+        CHECKING, BOOKING, BOOKED, CANCELING, FAILED
+    }
+
+    public record State(
+            String bookingId,
+            String studentId,
+            String aircraftId,
+            String instructorId,
+            List<String> slotIds,
+            List<String> bookedSlotIds,
+            Status status,
+            String failure) {
+
+        State withStatus(Status status) {
+            return new State(bookingId, studentId, aircraftId, instructorId, slotIds, bookedSlotIds, status, failure);
+        }
+
+        State withBooked(List<String> bookedSlotIds) {
+            return new State(bookingId, studentId, aircraftId, instructorId, slotIds, bookedSlotIds, status, failure);
+        }
+
+        State canceling(String failure) {
+            return new State(
+                    bookingId, studentId, aircraftId, instructorId, slotIds, bookedSlotIds, Status.CANCELING, failure);
+        }
+
+        State failed(String failure) {
+            return new State(
+                    bookingId, studentId, aircraftId, instructorId, slotIds, bookedSlotIds, Status.FAILED, failure);
+        }
+    }
+
+    public sealed interface Command {
+        record BookBlock(String studentId, String aircraftId, String instructorId, List<String> slotIds)
+                implements Command {
+        }
+    }
+}
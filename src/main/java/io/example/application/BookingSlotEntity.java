@@ -24,13 +24,19 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
     }
 
     public Effect<Done> markSlotAvailable(Command.MarkSlotAvailable cmd) {
-        logger.info("Marking slot available");
+        logger.debug("Marking slot available");
 
         if (currentState() == null) {
             return effects().error("Timeslot does not exist.");
         }
 
         var participant = cmd.participant();
+        // Marking a booked participant available again would let them be
+        // booked twice for the same hour
+        if (currentState().isBooked(participant.id(), participant.participantType())) {
+            logger.warn("Participant {} is already booked in slot {}.", participant.id(), entityId);
+            return effects().reply(Done.getInstance());
+        }
         var event = new BookingEvent.ParticipantMarkedAvailable(
                 commandContext().entityId(),
                 participant.id(),
@@ -43,7 +49,7 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
     }
 
     public Effect<Done> unmarkSlotAvailable(Command.UnmarkSlotAvailable cmd) {
-        logger.info("Unmarking slot available");
+        logger.debug("Unmarking slot available");
 
         if (currentState() == null) {
             return effects().error("Timeslot does not exist.");
@@ -63,7 +69,10 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
 
     // NOTE: booking a slot should produce 3
     // `ParticipantBooked` events
-    public Effect<Done> bookSlot(Command.BookReservation cmd) {
+    // Replies with the booked participants and the slot's version after the
+    // booking, see BookingReply. Repeating a booking with the same ID and
+    // participants succeeds without booking again.
+    public Effect<BookingReply> bookSlot(Command.BookReservation cmd) {
 
         if (currentState() == null) {
             return effects().error("Timeslot does not exist.");
@@ -74,34 +83,60 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
         String instructorId = cmd.instructorId();
         String bookingId = cmd.bookingId();
 
+        // A retried request: the booking is already there, so nothing to do
+        if (currentState().isBookedAs(bookingId, studentId, aircraftId, instructorId)) {
+            logger.debug("Booking {} already made", bookingId);
+            return effects().reply(new BookingReply(
+                    entityId,
+                    bookingId,
+                    currentState().findBooking(bookingId).stream().map(Timeslot.Booking::participant).toList(),
+                    commandContext().sequenceNumber()));
+        }
+        if (!currentState().findBooking(bookingId).isEmpty() || currentState().wasCanceled(bookingId)) {
+            return effects().error("Booking ID has already been used.");
+        }
+
         if (currentState().isBookable(studentId, aircraftId, instructorId)) {
 
+            var participants = List.of(
+                    new Participant(studentId, Participant.ParticipantType.STUDENT),
+                    new Participant(aircraftId, Participant.ParticipantType.AIRCRAFT),
+                    new Participant(instructorId, Participant.ParticipantType.INSTRUCTOR));
+            var version = commandContext().sequenceNumber() + participants.size();
+
             var student_booking_event = new BookingEvent.ParticipantBooked(
                     commandContext().entityId(),
                     studentId,
                     Participant.ParticipantType.STUDENT,
-                    bookingId
+                    bookingId,
+                    participants
             );
 
             var aircraft_booking_event = new BookingEvent.ParticipantBooked(
                     commandContext().entityId(),
                     aircraftId,
                     Participant.ParticipantType.AIRCRAFT,
-                    bookingId
+                    bookingId,
+                    participants
             );
 
             var instructor_booking_event = new BookingEvent.ParticipantBooked(
                     commandContext().entityId(),
                     instructorId,
                     Participant.ParticipantType.INSTRUCTOR,
-                    bookingId
+                    bookingId,
+                    participants
             );
 
             return effects()
                     .persist(student_booking_event,
                             aircraft_booking_event,
                             instructor_booking_event)
-                    .thenReply(newState -> Done.getInstance());
+                    .thenReply(newState -> new BookingReply(
+                            entityId,
+                            bookingId,
+                            newState.findBooking(bookingId).stream().map(Timeslot.Booking::participant).toList(),
+                            version));
 
         }
 
@@ -111,7 +146,10 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
 
     // NOTE: canceling a booking should produce 3
     // `ParticipantCanceled` events
-    public Effect<Done> cancelBooking(String bookingId) {
+    // Replies with the canceled participants and the slot's version after the
+    // cancellation. Canceling a booking that was already canceled succeeds
+    // without any participants in the reply.
+    public Effect<BookingReply> cancelBooking(String bookingId) {
 
         if (currentState() == null) {
             return effects().error("Timeslot does not exist.");
@@ -119,25 +157,34 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
 
         var bookingList = currentState().findBooking(bookingId);
 
+        // A retried request: the booking has already been canceled
+        if (bookingList.isEmpty() && currentState().wasCanceled(bookingId)) {
+            logger.debug("Booking {} already canceled", bookingId);
+            return effects().reply(new BookingReply(entityId, bookingId, List.of(), commandContext().sequenceNumber()));
+        }
+
         if (bookingList.isEmpty()) {
             return effects().error("Booking does not exist.");
         }
 
         List<BookingEvent> eventsToPersist = new ArrayList<>();
+        var participants = bookingList.stream().map(Timeslot.Booking::participant).toList();
+        var version = commandContext().sequenceNumber() + participants.size();
 
         for (Timeslot.Booking booking : bookingList) {
             eventsToPersist.add(new BookingEvent.ParticipantCanceled(
                     commandContext().entityId(),
                     booking.participant().id(),
                     booking.participant().participantType(),
-                    bookingId
+                    bookingId,
+                    participants
             ));
         }
 
         try {
         return effects()
                 .persist(eventsToPersist.get(0),eventsToPersist.get(1),eventsToPersist.get(2))
-                .thenReply(newState -> Done.getInstance());
+                .thenReply(newState -> new BookingReply(entityId, bookingId, participants, version));
         } catch (NoSuchElementException e) {
             return effects().error("Only 3 participants found in booking.");
         }
@@ -158,31 +205,18 @@ public class BookingSlotEntity extends EventSourcedEntity<Timeslot, BookingEvent
 
     @Override
     public Timeslot applyEvent(BookingEvent event) {
-        // Supply your own implementation to update state based
-        // on the event
-        switch (event) {
-            case BookingEvent.ParticipantMarkedAvailable evt ->
-                currentState().reserve(new BookingEvent.ParticipantMarkedAvailable(
-                        evt.slotId(),
-                        evt.participantId(),
-                        evt.participantType()));
-            case BookingEvent.ParticipantUnmarkedAvailable evt ->
-                currentState().unreserve(new BookingEvent.ParticipantUnmarkedAvailable(
-                        evt.slotId(),
-                        evt.participantId(),
-                        evt.participantType()
-                ));
-            case BookingEvent.ParticipantBooked evt ->
-                currentState().book(new BookingEvent.ParticipantBooked(
-                        evt.slotId(),
-                        evt.participantId(),
-                        evt.participantType(),
-                        evt.bookingId()
-                ));
-            case BookingEvent.ParticipantCanceled evt ->
-                currentState().cancelBooking(evt.bookingId());
-        }
-        return currentState();
+        return switch (event) {
+            case BookingEvent.ParticipantMarkedAvailable evt -> currentState().reserve(evt);
+            case BookingEvent.ParticipantUnmarkedAvailable evt -> currentState().unreserve(evt);
+            case BookingEvent.ParticipantBooked evt -> currentState().book(evt);
+            case BookingEvent.ParticipantCanceled evt -> currentState().cancelBooking(evt.bookingId());
+        };
+    }
+
+    // The authoritative result of booking or canceling. `version` is the slot's
+    // sequence number once the command's events are persisted. It is
+    // informational only; nothing waits for a view to reach it.
+    public record BookingReply(String slotId, String bookingId, List<Participant> participants, long version) {
     }
 
     public sealed interface Command {
@@ -0,0 +1,131 @@
+package io.example.application;
+
+import akka.javasdk.annotations.Component;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.timedaction.TimedAction;
+import com.typesafe.config.Config;
+import io.example.domain.SlotId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Takes the weather check off the booking path by asking the agent ahead of
+// time. Every run sweeps the slots that have availability marked over the next
+// few days and schedules a refresh for each slot whose recorded verdict would
+// go stale before the next sweep. Slots the rules evaluator can decide on its
+// own are skipped. Refreshes are spread out over time so the sweep doesn't
+// turn into a burst of model calls.
+@Component(id = "conditions-precompute")
+public class ConditionsPrecomputeAction extends TimedAction {
+
+    public static final String SWEEP_TIMER = "conditions-precompute-sweep";
+
+    private static final Logger logger = LoggerFactory.getLogger(ConditionsPrecomputeAction.class);
+
+    private final ComponentClient componentClient;
+    private final FlightConditionsChecker conditionsChecker;
+    private final Duration interval;
+    private final int daysAhead;
+    private final Duration refreshSpacing;
+    private final int pageSize;
+
+    public ConditionsPrecomputeAction(
+            ComponentClient componentClient, FlightConditionsChecker conditionsChecker, Config config) {
+        this.componentClient = componentClient;
+        this.conditionsChecker = conditionsChecker;
+        var precompute = config.getConfig("flight-conditions.precompute");
+        this.interval = precompute.getDuration("interval");
+        this.daysAhead = precompute.getInt("days-ahead");
+        this.refreshSpacing = precompute.getDuration("refresh-spacing");
+        this.pageSize = precompute.getInt("page-size");
+    }
+
+    public Effect sweepUpcoming() {
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        var fromSlotId = SlotId.of(now.plusHours(1));
+        var toSlotId = SlotId.of(now.plusDays(daysAhead));
+
+        // The view has a row per available participant, so the same slot
+        // turns up on several rows, and pages may split a slot's rows
+        var slotIds = new LinkedHashSet<String>();
+        var pageToken = "";
+        ParticipantSlotsView.SlotPage page;
+        do {
+            page = componentClient
+                    .forView()
+                    .method(ParticipantSlotsView::getSlotsByStatusInRangePage)
+                    .invoke(new ParticipantSlotsView.SlotRangePageInput(
+                            "available", fromSlotId, toSlotId, pageToken, pageSize));
+            page.slots().forEach(row -> slotIds.add(row.slotId()));
+            pageToken = page.nextPageToken();
+        } while (page.hasMore());
+
+        // Anything that would expire before the next sweep gets refreshed now.
+        // The recorded verdicts of the slots are read all at once.
+        var staleAfter = Instant.now().plus(interval);
+        var stale = slotIds.stream()
+                .filter(conditionsChecker::needsAgent)
+                .map(slotId -> componentClient
+                        .forKeyValueEntity(slotId)
+                        .method(SlotConditionsEntity::getConditions)
+                        .invokeAsync()
+                        .thenApply(conditions ->
+                                conditions.isFreshAt(staleAfter, conditionsChecker.maxAge()) ? null : slotId)
+                        .toCompletableFuture())
+                .toList();
+        CompletableFuture.allOf(stale.toArray(CompletableFuture[]::new)).join();
+
+        var scheduled = 0;
+        for (var slot : stale) {
+            var slotId = slot.join();
+            if (slotId == null) {
+                continue;
+            }
+            timers().createSingleTimer(
+                    "conditions-refresh-" + slotId,
+                    refreshSpacing.multipliedBy(scheduled),
+                    componentClient
+                            .forTimedAction()
+                            .method(ConditionsPrecomputeAction::refreshSlot)
+                            .deferred(slotId));
+            scheduled++;
+        }
+
+        logger.info("Swept {} slots with availability between {} and {}, {} scheduled for refresh",
+                slotIds.size(), fromSlotId, toSlotId, scheduled);
+
+        timers().createSingleTimer(
+                SWEEP_TIMER,
+                interval,
+                componentClient
+                        .forTimedAction()
+                        .method(ConditionsPrecomputeAction::sweepUpcoming)
+                        .deferred());
+
+        return effects().done();
+    }
+
+    // A failed refresh is logged and dropped rather than retried by the
+    // timer, which would keep calling a model that is rate limiting. The
+    // next sweep schedules the slot again if it is still stale.
+    public Effect refreshSlot(String slotId) {
+        try {
+            var report = conditionsChecker.refresh(slotId)
+                    .toCompletableFuture()
+                    .join();
+            logger.info("Refreshed flight conditions for slot {}: {}", slotId, report);
+        } catch (RuntimeException e) {
+            var cause = e instanceof CompletionException ? e.getCause() : e;
+            logger.warn("Could not refresh flight conditions for slot {}", slotId, cause);
+        }
+
+        return effects().done();
+    }
+}
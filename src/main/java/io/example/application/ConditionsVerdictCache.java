@@ -0,0 +1,85 @@
+package io.example.application;
+
+import io.example.application.FlightConditionsAgent.ConditionsReport;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+// Every booking for the same slot gets the same weather verdict, so verdicts are
+// shared across requests, keyed by slot ID (YYYY-MM-DD-HH). Entries expire after
+// a configurable TTL and the least recently used entries are evicted once the
+// cache is full. Lookups for a slot whose verdict is still being computed join
+// the in-flight call rather than starting a second one, and failed lookups are
+// never cached.
+public class ConditionsVerdictCache {
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    public ConditionsVerdictCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public CompletionStage<ConditionsReport> get(
+            String slotId, Function<String, CompletionStage<ConditionsReport>> loader) {
+
+        var entry = new Entry();
+        synchronized (entries) {
+            var existing = entries.get(slotId);
+            if (existing != null && !existing.isExpired(System.nanoTime())) {
+                return existing.verdict;
+            }
+            entries.put(slotId, entry);
+        }
+
+        try {
+            loader.apply(slotId).whenComplete((report, ex) -> {
+                if (ex != null) {
+                    evict(slotId, entry);
+                    entry.verdict.completeExceptionally(ex);
+                } else {
+                    entry.expiresAt = System.nanoTime() + ttlNanos;
+                    entry.verdict.complete(report);
+                }
+            });
+        } catch (RuntimeException ex) {
+            evict(slotId, entry);
+            entry.verdict.completeExceptionally(ex);
+        }
+
+        return entry.verdict;
+    }
+
+    // Drops the verdict for a slot so the next lookup asks for a fresh one
+    public void invalidate(String slotId) {
+        synchronized (entries) {
+            entries.remove(slotId);
+        }
+    }
+
+    private void evict(String slotId, Entry entry) {
+        synchronized (entries) {
+            entries.remove(slotId, entry);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<ConditionsReport> verdict = new CompletableFuture<>();
+        // Only set once the verdict completes; in-flight entries never expire
+        private volatile long expiresAt;
+
+        private boolean isExpired(long now) {
+            return verdict.isDone() && now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.example.application;
+
+import akka.javasdk.JsonSupport;
+import com.typesafe.config.Config;
+import io.example.domain.SlotId;
+import io.example.domain.WeatherForecast;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+// Stand-in weather service that reads its forecasts from a JSON file once, at
+// startup. The file has a forecast per month of the year, which gives both
+// suitable and unsuitable flying weather depending on the slot that is
+// booked, and can override the forecast of single slots:
+//
+//   {"months": {"1": {...}, ...}, "slots": {"2025-08-08-09": {...}}}
+//
+// The file is flight-conditions.forecast-file if set, otherwise forecasts.json
+// on the classpath. Slots the file has no forecast for get an unknown one, and
+// so do slots whose ID isn't an hour (YYYY-MM-DD-HH) and thus has no month,
+// unless the file has a forecast for that very slot.
+public class FileForecastProvider implements ForecastProvider {
+
+    private static final String DEFAULT_RESOURCE = "forecasts.json";
+
+    private final Map<Integer, WeatherForecast> months;
+    private final Map<String, WeatherForecast> slots;
+
+    public FileForecastProvider(Forecasts forecasts) {
+        this.months = forecasts.months() == null ? Map.of() : Map.copyOf(forecasts.months());
+        this.slots = forecasts.slots() == null ? Map.of() : Map.copyOf(forecasts.slots());
+    }
+
+    public static FileForecastProvider fromConfig(Config config) {
+        var path = "flight-conditions.forecast-file";
+        try (var in = config.hasPath(path)
+                ? new FileInputStream(config.getString(path))
+                : FileForecastProvider.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException(DEFAULT_RESOURCE + " not found on the classpath");
+            }
+            return new FileForecastProvider(read(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the forecasts", e);
+        }
+    }
+
+    private static Forecasts read(InputStream in) throws IOException {
+        return JsonSupport.getObjectMapper().readValue(in, Forecasts.class);
+    }
+
+    @Override
+    public WeatherForecast forecast(String slotId) {
+        var forecast = slots.get(slotId);
+        if (forecast == null && SlotId.isValid(slotId)) {
+            forecast = months.get(SlotId.parse(slotId).getMonthValue());
+        }
+        return forecast == null ? WeatherForecast.unknown() : forecast;
+    }
+
+    // The layout of the forecasts file
+    public record Forecasts(Map<Integer, WeatherForecast> months, Map<String, WeatherForecast> slots) {
+    }
+}
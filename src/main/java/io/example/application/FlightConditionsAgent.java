@@ -6,10 +6,7 @@ import akka.javasdk.agent.RateLimitException;
 import akka.javasdk.agent.ToolCallExecutionException;
 import akka.javasdk.annotations.Component;
 import akka.javasdk.annotations.FunctionTool;
-
-import java.util.List;
-
-import static java.lang.Integer.parseInt;
+import io.example.domain.WeatherForecast;
 
 /*
  * The flight conditions agent is responsible for making a determination about the flight
@@ -28,32 +25,36 @@ import static java.lang.Integer.parseInt;
 @Component(id = "flight-conditions-agent")
 public class FlightConditionsAgent extends Agent {
 
-    public record ConditionsReport(String timeSlotId, Boolean meetsRequirements) {
+    // `limitingFactor` is what rules the slot out, e.g. "ceiling" or
+    // "thunderstorm", and null when the slot meets the requirements
+    public record ConditionsReport(String timeSlotId, Boolean meetsRequirements, String limitingFactor) {
     }
 
     private static final String SYSTEM_MESSAGE = """
-            You are an agent responsible for evaluating flight conditions.
-            You will receive information about a particular time slot in the following format:
-            
-            YYYY-MM-DD-HH
-            
-            e.g. 2025-08-08-09, represents a slot for August 8th, 2025 at 9am local time.
-            
-            You must retrieve the weather conditions for the associated date and time, and make a final judgement as to whether the conditions are suitable for a flying lesson.
-            
-            Your expected output format is as follows:
-              {
-                "timeSlotId": "<String (timeSlotId)>",
-                "meetsRequirements": "<Boolean (True/False)>",
-              }
-            
-            
+            You evaluate whether the weather suits a VFR flying lesson.
+            The user gives a time slot ID (YYYY-MM-DD-HH, local time). Call getWeatherForecast with it once.
+            The forecast is JSON; null attributes are unknown.
+            Fail the slot on icing, any hazard, visibility below %s miles, ceiling below %d feet,
+            wind above %d knots or gusts above %d knots. Otherwise pass it if the weather is safe.
+            limitingFactor is the first failing item: "icing", the hazard, "visibility", "ceiling", "wind" or "gust";
+            null when the slot passes.
+            Reply with JSON only: {"timeSlotId": "<slot ID>", "meetsRequirements": <true|false>, "limitingFactor": <string|null>}
             """.stripIndent();
 
+    private final ForecastProvider forecastProvider;
+    private final String systemMessage;
+
+    public FlightConditionsAgent(ForecastProvider forecastProvider, FlightConditionsSettings settings) {
+        this.forecastProvider = forecastProvider;
+        var limits = settings.vfrMinimums();
+        this.systemMessage = SYSTEM_MESSAGE.formatted(
+                limits.minVisibilityMiles(), limits.minCeilingFeet(), limits.maxWindKnots(), limits.maxGustKnots());
+    }
+
     public Effect<ConditionsReport> query(String timeSlotId) {
         return effects()
-                .systemMessage(SYSTEM_MESSAGE)
-                .userMessage("Validate the weather conditions for the associated date and time (YYYY-MM-DD-HH): %s".formatted(timeSlotId))
+                .systemMessage(systemMessage)
+                .userMessage(timeSlotId)
                 .responseAs(ConditionsReport.class)
                 .onFailure(exception -> {
                     switch (exception) {
@@ -66,38 +67,10 @@ public class FlightConditionsAgent extends Agent {
                 .thenReply();
     }
 
-    /*
-     * You can choose to hard code the weather conditions for specific days or you
-     * can actually
-     * communicate with an external weather API. You should be able to get both
-     * suitable weather
-     * conditions and poor weather conditions from this tool function for testing.
-     */
-    //TODO weather service - create bootstrap file
-    @FunctionTool(description = "Queries the weather conditions as they are forecasted based on the time slot ID of the training session booking")
-    private String getWeatherForecast(String timeSlotId) {
-        var month = parseInt(timeSlotId.split("-")[1]);
-
-        return switch (month) {
-            // WINTER: Clear "FALSE" due to Icing and low visibility
-            case 12, 1, 2 -> "Heavy freezing rain and thick fog. Visibility 1/4 mile. Surface icing present.";
-
-            // SPRING: Clear "FALSE" due to Severe Turbulence/Storms
-            case 3, 4 -> "Severe thunderstorms with hail. Sustained winds 40 knots, gusting to 60.";
-
-            // LATE SPRING: Clear "TRUE" - Perfect VFR (Visual Flight Rules)
-            case 5, 6 -> "Clear skies. Visibility 10 miles. Wind calm at 2 knots.";
-
-            // SUMMER: Clear "TRUE" - Standard Fair Weather
-            case 7, 8 -> "Sunny skies with a few scattered clouds at 10,000 feet. Visibility unlimited.";
-
-            // FALL: Clear "FALSE" due to Low Ceiling (Cloud Base)
-            case 9, 10 -> "Solid overcast ceiling at 200 feet. Continuous heavy rain and mist.";
-
-            // LATE FALL: Clear "FALSE" due to Wind Shear
-            case 11 -> "Extreme low-level wind shear and turbulence. Gale warning in effect.";
-
-            default -> "Extreme weather emergency. Volcanic ash detected.";
-        };
+    // The forecast goes to the model as JSON, so it doesn't have to read the
+    // weather out of prose
+    @FunctionTool(description = "Returns the weather forecast for a time slot ID as JSON")
+    private WeatherForecast getWeatherForecast(String timeSlotId) {
+        return forecastProvider.forecast(timeSlotId);
     }
 }
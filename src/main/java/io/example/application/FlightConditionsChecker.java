@@ -0,0 +1,136 @@
+package io.example.application;
+
+import akka.javasdk.Tracing;
+import akka.javasdk.client.ComponentClient;
+import io.example.application.FlightConditionsAgent.ConditionsReport;
+import io.example.domain.SlotConditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+// Entry point for anything that needs a weather verdict for a slot. Verdicts
+// come from the shared cache first. On a miss, and when the RULES evaluator is
+// configured, the slot's forecast (from the ForecastProvider) is checked
+// against the VFR limits in-process.
+// Forecasts the rules can't decide use the verdict recorded for the slot in
+// SlotConditionsEntity (as long as it is younger than the max verdict age), and
+// the FlightConditionsAgent is only asked when there is none. Calls to the
+// agent go through AgentAdmissionControl.
+public class FlightConditionsChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightConditionsChecker.class);
+
+    private final ComponentClient componentClient;
+    private final ConditionsVerdictCache verdictCache;
+    private final FlightConditionsSettings settings;
+    private final AgentAdmissionControl admissionControl;
+    private final ForecastProvider forecastProvider;
+
+    public FlightConditionsChecker(
+            ComponentClient componentClient,
+            ConditionsVerdictCache verdictCache,
+            FlightConditionsSettings settings,
+            AgentAdmissionControl admissionControl,
+            ForecastProvider forecastProvider) {
+        this.componentClient = componentClient;
+        this.verdictCache = verdictCache;
+        this.settings = settings;
+        this.admissionControl = admissionControl;
+        this.forecastProvider = forecastProvider;
+    }
+
+    public CompletionStage<ConditionsReport> check(String slotId) {
+        return check(slotId, null);
+    }
+
+    // As check(slotId), with the recorded verdict lookup and the agent call
+    // traced as spans of the caller's request
+    public CompletionStage<ConditionsReport> check(String slotId, Tracing tracing) {
+        return verdictCache.get(slotId, id -> loadVerdict(id, tracing));
+    }
+
+    // Evaluates the slot again regardless of any cached or recorded verdict,
+    // and records the agent's result for subsequent bookings
+    public CompletionStage<ConditionsReport> refresh(String slotId) {
+        verdictCache.invalidate(slotId);
+        return verdictCache.get(slotId, id -> evaluateRules(id)
+                .map(CompletableFuture::completedStage)
+                .orElseGet(() -> queryAndRecord(id, null)));
+    }
+
+    // Whether a verdict for the slot depends on the agent, i.e. the rules
+    // evaluator isn't configured or can't decide the slot's forecast
+    public boolean needsAgent(String slotId) {
+        return evaluateRules(slotId).isEmpty();
+    }
+
+    public Duration maxAge() {
+        return settings.maxVerdictAge();
+    }
+
+    private CompletionStage<ConditionsReport> loadVerdict(String slotId, Tracing tracing) {
+        return evaluateRules(slotId)
+                .map(CompletableFuture::completedStage)
+                .orElseGet(() -> loadRecordedVerdict(slotId, tracing));
+    }
+
+    private Optional<ConditionsReport> evaluateRules(String slotId) {
+        if (settings.evaluator() != FlightConditionsSettings.Evaluator.RULES) {
+            return Optional.empty();
+        }
+
+        var forecast = forecastProvider.forecast(slotId);
+        var verdict = settings.vfrMinimums().evaluate(forecast);
+        if (verdict.isEmpty()) {
+            logger.debug("Forecast for slot {} can't be decided by rules: {}", slotId, forecast);
+        }
+        return verdict.map(v -> new ConditionsReport(slotId, v.meetsRequirements(), v.limitingFactor()));
+    }
+
+    private CompletionStage<ConditionsReport> loadRecordedVerdict(String slotId, Tracing tracing) {
+        var ids = Spans.attributes(Spans.SLOT_ID, slotId);
+        return Spans.traceAsync(tracing, "SlotConditionsEntity.getConditions", ids, () -> componentClient
+                        .forKeyValueEntity(slotId)
+                        .method(SlotConditionsEntity::getConditions)
+                        .invokeAsync())
+                .thenCompose(conditions -> {
+                    if (conditions.isFreshAt(Instant.now(), settings.maxVerdictAge())) {
+                        return CompletableFuture.completedFuture(
+                                new ConditionsReport(slotId, conditions.meetsRequirements(), conditions.limitingFactor()));
+                    }
+                    return queryAndRecord(slotId, tracing);
+                });
+    }
+
+    private CompletionStage<ConditionsReport> queryAndRecord(String slotId, Tracing tracing) {
+        return queryAgent(slotId, tracing).thenCompose(report -> {
+            var conditions = new SlotConditions(
+                    slotId, Boolean.TRUE.equals(report.meetsRequirements()), report.limitingFactor(), Instant.now());
+            return componentClient
+                    .forKeyValueEntity(slotId)
+                    .method(SlotConditionsEntity::recordConditions)
+                    .invokeAsync(conditions)
+                    .thenApply(done -> report);
+        });
+    }
+
+    // The span includes any time spent waiting for admission
+    private CompletionStage<ConditionsReport> queryAgent(String slotId, Tracing tracing) {
+        var ids = Spans.attributes(Spans.SLOT_ID, slotId);
+        return Spans.traceAsync(tracing, "FlightConditionsAgent.query", ids, () -> admissionControl.call(() -> {
+            logger.debug("Calling FlightConditionsAgent for slot {}", slotId);
+            var sessionId = UUID.randomUUID().toString();
+            return componentClient
+                    .forAgent()
+                    .inSession(sessionId)
+                    .method(FlightConditionsAgent::query)
+                    .invokeAsync(slotId);
+        }));
+    }
+}
@@ -0,0 +1,39 @@
+package io.example.application;
+
+import com.typesafe.config.Config;
+import io.example.domain.VfrMinimums;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Settings for weather checks, read from the flight-conditions block in application.conf
+public record FlightConditionsSettings(
+        Evaluator evaluator,
+        VfrMinimums vfrMinimums,
+        Duration maxVerdictAge,
+        Duration verdictCacheTtl,
+        int verdictCacheMaxEntries) {
+
+    // Where verdicts come from. AGENT always asks the model. RULES checks the
+    // forecast against the VFR limits in-process and only asks the model for
+    // forecasts the rules can't decide.
+    public enum Evaluator {
+        AGENT,
+        RULES
+    }
+
+    public static FlightConditionsSettings fromConfig(Config config) {
+        var conditions = config.getConfig("flight-conditions");
+        var limits = conditions.getConfig("vfr-limits");
+        return new FlightConditionsSettings(
+                Evaluator.valueOf(conditions.getString("evaluator").trim().toUpperCase(Locale.ROOT)),
+                new VfrMinimums(
+                        limits.getDouble("min-visibility-miles"),
+                        limits.getInt("min-ceiling-feet"),
+                        limits.getInt("max-wind-knots"),
+                        limits.getInt("max-gust-knots")),
+                conditions.getDuration("max-verdict-age"),
+                conditions.getDuration("verdict-cache.ttl"),
+                conditions.getInt("verdict-cache.max-entries"));
+    }
+}
@@ -0,0 +1,11 @@
+package io.example.application;
+
+import io.example.domain.WeatherForecast;
+
+// Where the weather checks get the forecast for a slot from. Used by the rules
+// evaluator in FlightConditionsChecker and by the FlightConditionsAgent's
+// weather tool, so both judge the same forecast. See FileForecastProvider.
+public interface ForecastProvider {
+
+    WeatherForecast forecast(String slotId);
+}
@@ -0,0 +1,72 @@
+package io.example.application;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+// A lock-free latency histogram with fixed, roughly logarithmic buckets from
+// 1ms up to 10 minutes. Percentiles are reported as the upper bound of the
+// bucket they fall into, which is plenty of resolution for lag that is
+// measured across several components.
+public final class LatencyHistogram {
+
+    private static final long[] BUCKET_BOUNDS_MILLIS = {
+            1, 2, 5, 10, 20, 50, 100, 200, 500,
+            1_000, 2_000, 5_000, 10_000, 20_000, 60_000, 120_000, 600_000
+    };
+
+    // The last bucket counts everything above the largest bound
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    public void record(Duration latency) {
+        var millis = Math.max(0, latency.toMillis());
+        counts.incrementAndGet(bucketOf(millis));
+        max.accumulate(millis);
+    }
+
+    public Snapshot snapshot() {
+        var snapshot = new long[counts.length()];
+        var total = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        var maxMillis = max.get();
+        return new Snapshot(
+                total,
+                percentile(snapshot, total, 0.50, maxMillis),
+                percentile(snapshot, total, 0.99, maxMillis),
+                maxMillis);
+    }
+
+    private static int bucketOf(long millis) {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            if (millis <= BUCKET_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MILLIS.length;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxMillis) {
+        if (total == 0) {
+            return 0;
+        }
+        var rank = (long) Math.ceil(quantile * total);
+        var seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // never report more than the largest value actually recorded
+                return i < BUCKET_BOUNDS_MILLIS.length
+                        ? Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis)
+                        : maxMillis;
+            }
+        }
+        return maxMillis;
+    }
+
+    public record Snapshot(long count, long p50Millis, long p99Millis, long maxMillis) {
+    }
+}
@@ -0,0 +1,143 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.annotations.TypeName;
+import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import io.example.domain.ParticipantCalendar;
+import io.example.domain.Participant.ParticipantType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// A participant's availability and bookings for one month, see
+// ParticipantCalendar. The entity ID is {participantId}-{YYYY-MM}, see
+// ParticipantCalendar.calendarId. Fed by SlotToParticipantConsumer when
+// calendars are enabled (flight.participant-state.calendars).
+//
+// Commands that don't change the calendar (marking an hour that is already
+// available or booked, canceling an hour that isn't booked, ...) reply
+// without persisting anything, so redelivered events are harmless.
+//
+// Calendars only record the events consumed while they are enabled. The
+// months from before that can be filled from the participant slots view with
+// POST /flight/calendar/{participantId}/{month}/backfill.
+@Component(id = "participant-calendar")
+public class ParticipantCalendarEntity
+        extends EventSourcedEntity<ParticipantCalendar, ParticipantCalendarEntity.Event> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParticipantCalendarEntity.class);
+
+    public Effect<Done> markAvailable(Command.MarkAvailable cmd) {
+        var calendar = calendar(cmd.participantId(), cmd.participantType(), cmd.slotId());
+        if (calendar.isAvailable(cmd.slotId()) || calendar.isBooked(cmd.slotId())) {
+            return effects().reply(Done.getInstance());
+        }
+        return persist(new Event.MarkedAvailable(cmd.slotId(), cmd.participantId(), cmd.participantType()));
+    }
+
+    public Effect<Done> unmarkAvailable(Command.UnmarkAvailable cmd) {
+        if (!calendar(cmd.participantId(), cmd.participantType(), cmd.slotId()).isAvailable(cmd.slotId())) {
+            return effects().reply(Done.getInstance());
+        }
+        return persist(new Event.UnmarkedAvailable(cmd.slotId(), cmd.participantId(), cmd.participantType()));
+    }
+
+    public Effect<Done> book(Command.Book cmd) {
+        if (!calendar(cmd.participantId(), cmd.participantType(), cmd.slotId()).isAvailable(cmd.slotId())) {
+            logger.warn("Participant {} is not available for slot {}, not booking {}.",
+                    cmd.participantId(), cmd.slotId(), cmd.bookingId());
+            return effects().reply(Done.getInstance());
+        }
+        return persist(new Event.Booked(cmd.slotId(), cmd.participantId(), cmd.participantType(), cmd.bookingId()));
+    }
+
+    public Effect<Done> cancel(Command.Cancel cmd) {
+        if (!calendar(cmd.participantId(), cmd.participantType(), cmd.slotId()).isBooked(cmd.slotId())) {
+            return effects().reply(Done.getInstance());
+        }
+        return persist(new Event.Canceled(cmd.slotId(), cmd.participantId(), cmd.participantType(), cmd.bookingId()));
+    }
+
+    // The available and booked slots of the month, none if nothing has been
+    // recorded for the participant in the month
+    public ReadOnlyEffect<CalendarSlots> getCalendar() {
+        if (currentState() == null) {
+            return effects().reply(new CalendarSlots(List.of()));
+        }
+        return effects().reply(new CalendarSlots(currentState().slots()));
+    }
+
+    private Effect<Done> persist(Event event) {
+        return effects()
+                .persist(event)
+                .thenReply(__ -> Done.getInstance());
+    }
+
+    private ParticipantCalendar calendar(String participantId, ParticipantType participantType, String slotId) {
+        return currentState() != null
+                ? currentState()
+                : ParticipantCalendar.empty(participantId, participantType, ParticipantCalendar.monthOf(slotId));
+    }
+
+    public record CalendarSlots(List<ParticipantCalendar.CalendarSlot> slots) {
+    }
+
+    public sealed interface Command {
+        record MarkAvailable(String slotId, String participantId, ParticipantType participantType)
+                implements Command {
+        }
+
+        record UnmarkAvailable(String slotId, String participantId, ParticipantType participantType)
+                implements Command {
+        }
+
+        record Book(String slotId, String participantId, ParticipantType participantType, String bookingId)
+                implements Command {
+        }
+
+        record Cancel(String slotId, String participantId, ParticipantType participantType, String bookingId)
+                implements Command {
+        }
+    }
+
+    public sealed interface Event {
+        String slotId();
+
+        String participantId();
+
+        ParticipantType participantType();
+
+        @TypeName("calendar-marked-available")
+        record MarkedAvailable(String slotId, String participantId, ParticipantType participantType)
+                implements Event {
+        }
+
+        @TypeName("calendar-unmarked-available")
+        record UnmarkedAvailable(String slotId, String participantId, ParticipantType participantType)
+                implements Event {
+        }
+
+        @TypeName("calendar-booked")
+        record Booked(String slotId, String participantId, ParticipantType participantType, String bookingId)
+                implements Event {
+        }
+
+        @TypeName("calendar-canceled")
+        record Canceled(String slotId, String participantId, ParticipantType participantType, String bookingId)
+                implements Event {
+        }
+    }
+
+    @Override
+    public ParticipantCalendar applyEvent(Event event) {
+        var calendar = calendar(event.participantId(), event.participantType(), event.slotId());
+        return switch (event) {
+            case Event.MarkedAvailable evt -> calendar.markAvailable(evt.slotId());
+            case Event.UnmarkedAvailable evt -> calendar.unmarkAvailable(evt.slotId());
+            case Event.Booked evt -> calendar.book(evt.slotId(), evt.bookingId());
+            case Event.Canceled evt -> calendar.cancel(evt.slotId());
+        };
+    }
+}
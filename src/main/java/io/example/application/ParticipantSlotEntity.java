@@ -4,6 +4,7 @@ import akka.Done;
 import akka.javasdk.annotations.Component;
 import akka.javasdk.annotations.TypeName;
 import akka.javasdk.eventsourcedentity.EventSourcedEntity;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.example.domain.Participant.ParticipantType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,17 +16,17 @@ public class ParticipantSlotEntity
         private static Logger logger = LoggerFactory.getLogger(ParticipantSlotEntity.class);
 
         public Effect<Done> unmarkAvailable(ParticipantSlotEntity.Commands.UnmarkAvailable unmark) {
-                logger.info("Unmarking participant {} available for slot {}...", unmark.participantId, unmark.slotId);
+                logger.debug("Unmarking participant {} available for slot {}...", unmark.participantId, unmark.slotId);
 
                 if (currentState() == null) {
                     logger.error("Slot {} doesn't exist.", unmark.slotId);
                     return effects().reply(Done.getInstance());
                 } else {
-                    if (currentState().status().equals("unavailable")) {
+                    if (currentState().status() == Status.UNAVAILABLE) {
                         logger.warn("Participant {} already unmarked available for slot {}.", unmark.participantId, unmark.slotId);
                         return effects().reply(Done.getInstance());
                     }
-                    if (currentState().status().equals("booked")) {
+                    if (currentState().status() == Status.BOOKED) {
                         logger.warn("Participant {} is booked for slot {}. You must cancel reservation before unmarking availability.", unmark.participantId, unmark.slotId);
                         return effects().reply(Done.getInstance());
                     }
@@ -40,14 +41,14 @@ public class ParticipantSlotEntity
         }
 
         public Effect<Done> markAvailable(ParticipantSlotEntity.Commands.MarkAvailable mark) {
-                logger.info("Marking participant {} available for slot {}...", mark.participantId, mark.slotId);
+                logger.debug("Marking participant {} available for slot {}...", mark.participantId, mark.slotId);
 
                 if (currentState() != null) {
-                    if (currentState().status().equals("available")) {
+                    if (currentState().status() == Status.AVAILABLE) {
                         logger.warn("Participant {} already marked available for slot {}.", mark.participantId, mark.slotId);
                         return effects().reply(Done.getInstance());
                     }
-                    if (currentState().status().equals("booked")) {
+                    if (currentState().status() == Status.BOOKED) {
                         logger.warn("Participant {} has already been booked for slot {}.", mark.participantId, mark.slotId);
                         return effects().reply(Done.getInstance());
                     }
@@ -62,17 +63,17 @@ public class ParticipantSlotEntity
         }
 
         public Effect<Done> book(ParticipantSlotEntity.Commands.Book book) {
-                logger.info("Booking slot {} for participant {}", book.slotId, book.participantId);
+                logger.debug("Booking slot {} for participant {}", book.slotId, book.participantId);
 
                 if (currentState() == null) {
                     logger.error("Slot {} doesn't exist.", book.slotId);
                     return effects().reply(Done.getInstance());
                 } else {
-                    if (currentState().status().equals("unavailable")) {
+                    if (currentState().status() == Status.UNAVAILABLE) {
                         logger.warn("Participant {} unavailable for slot {}.", book.participantId, book.slotId);
                         return effects().reply(Done.getInstance());
                     }
-                    if (currentState().status().equals("booked")) {
+                    if (currentState().status() == Status.BOOKED) {
                         logger.warn("Participant {} has already been booked for slot {}. Booking ref is {}.", book.participantId, book.slotId, book.bookingId);
                         return effects().reply(Done.getInstance());
                     }
@@ -88,14 +89,14 @@ public class ParticipantSlotEntity
         }
 
         public Effect<Done> cancel(ParticipantSlotEntity.Commands.Cancel cancel) {
-            logger.info("Canceling slot {} for participant {}", cancel.slotId, cancel.participantId);
+            logger.debug("Canceling slot {} for participant {}", cancel.slotId, cancel.participantId);
 
                 if (currentState() == null) {
                     logger.error("Slot doesn't exist.");
                     return effects().reply(Done.getInstance());
                 }
 
-                if (!currentState().status().equals("booked")) {
+                if (currentState().status() != Status.BOOKED) {
                     logger.warn("Slot hasn't been booked yet.");
                     return effects().reply(Done.getInstance());
                 }
@@ -110,7 +111,14 @@ public class ParticipantSlotEntity
         }
 
         record State(
-                        String slotId, String participantId, ParticipantType participantType, String status) {
+                        String slotId, String participantId, ParticipantType participantType, Status status) {
+        }
+
+        // Stored with the same lowercase names the status strings had
+        enum Status {
+                @JsonProperty("available") AVAILABLE,
+                @JsonProperty("unavailable") UNAVAILABLE,
+                @JsonProperty("booked") BOOKED
         }
 
         public sealed interface Commands {
@@ -161,13 +169,13 @@ public class ParticipantSlotEntity
         public ParticipantSlotEntity.State applyEvent(ParticipantSlotEntity.Event event) {
                 return switch (event) {
                     case ParticipantSlotEntity.Event.MarkedAvailable evt ->
-                        new State(evt.slotId, evt.participantId, evt.participantType, "available");
+                        new State(evt.slotId, evt.participantId, evt.participantType, Status.AVAILABLE);
                     case ParticipantSlotEntity.Event.UnmarkedAvailable evt ->
-                        new State(evt.slotId, evt.participantId, evt.participantType, "unavailable");
+                        new State(evt.slotId, evt.participantId, evt.participantType, Status.UNAVAILABLE);
                     case ParticipantSlotEntity.Event.Booked evt ->
-                            new State(evt.slotId, evt.participantId, evt.participantType, "booked");
+                            new State(evt.slotId, evt.participantId, evt.participantType, Status.BOOKED);
                     case ParticipantSlotEntity.Event.Canceled evt ->
-                            new State(evt.slotId, evt.participantId, evt.participantType, "available");
+                            new State(evt.slotId, evt.participantId, evt.participantType, Status.AVAILABLE);
                 };
 //                return null;
         }
@@ -23,7 +23,24 @@ public class ParticipantSlotsView extends View {
 
         public Effect<SlotRow> onEvent(ParticipantSlotEntity.Event event) {
             // Supply your own implementation
-            logger.info("Received event {}", event);
+            logger.debug("Received event {}", event);
+            PipelineMetrics.eventTime(updateContext().metadata())
+                    .ifPresent(eventTime -> PipelineMetrics.recordSince(PipelineMetrics.VIEW_UPDATER_LAG, eventTime));
+
+            var effect = apply(event);
+
+            switch (event) {
+                case Booked evt -> PipelineMetrics.recordEndToEnd(
+                        PipelineMetrics.BOOKED, evt.slotId(), evt.participantId(), evt.bookingId());
+                case Canceled evt -> PipelineMetrics.recordEndToEnd(
+                        PipelineMetrics.CANCELED, evt.slotId(), evt.participantId(), evt.bookingId());
+                default -> {
+                }
+            }
+            return effect;
+        }
+
+        private Effect<SlotRow> apply(ParticipantSlotEntity.Event event) {
             switch (event) {
                 case MarkedAvailable evt -> {
                     SlotRow slotRow = new SlotRow(evt.slotId(), evt.participantId(), evt.participantType().toString(), "", "available");
@@ -60,9 +77,28 @@ public class ParticipantSlotsView extends View {
     public record ParticipantStatusInput(String participantId, String status) {
     }
 
+    // pageToken is empty for the first page, see ScheduleInput
+    public record SlotRangePageInput(
+            String status, String fromSlotId, String toSlotId, String pageToken, int pageSize) {
+    }
+
+    // fromSlotId and toSlotId are inclusive. pageToken is empty for the first
+    // page, and the nextPageToken of the previous page after that.
+    public record ScheduleInput(
+            String participantId,
+            String status,
+            String fromSlotId,
+            String toSlotId,
+            String pageToken,
+            int pageSize) {
+    }
+
     public record SlotList(List<SlotRow> slots) {
     }
 
+    public record SlotPage(List<SlotRow> slots, String nextPageToken, boolean hasMore) {
+    }
+
 //     @Query("SELECT participantId, slotId, status FROM slots_by_participant WHERE participantId = :participantId")
 //    public QueryEffect<SlotList> getSlotsByParticipant(String participantId) {
 //        return queryResult();
@@ -72,4 +108,54 @@ public class ParticipantSlotsView extends View {
     public QueryEffect<SlotList> getSlotsByParticipantAndStatus(ParticipantStatusInput input) {
         return queryResult();
     }
+
+    // The rows with the given status in a range of slots, in slot order and
+    // one page at a time. Slot IDs sort chronologically, so a range of slot
+    // IDs is a range of hours. There is a row per participant, so a slot can
+    // appear more than once.
+    @Query("""
+            SELECT * AS slots, next_page_token() AS nextPageToken, has_more() AS hasMore
+            FROM slots_by_participant_and_status
+            WHERE status = :status AND slotId >= :fromSlotId AND slotId <= :toSlotId
+            ORDER BY slotId
+            OFFSET page_token_offset(:pageToken)
+            LIMIT :pageSize
+            """)
+    public QueryEffect<SlotPage> getSlotsByStatusInRangePage(SlotRangePageInput input) {
+        return queryResult();
+    }
+
+    // A participant's slots with the given status in a range of slots, in
+    // slot order and one page at a time
+    @Query("""
+            SELECT * AS slots, next_page_token() AS nextPageToken, has_more() AS hasMore
+            FROM slots_by_participant_and_status
+            WHERE participantId = :participantId AND status = :status
+              AND slotId >= :fromSlotId AND slotId <= :toSlotId
+            ORDER BY slotId
+            OFFSET page_token_offset(:pageToken)
+            LIMIT :pageSize
+            """)
+    public QueryEffect<SlotPage> getScheduleInRange(ScheduleInput input) {
+        return queryResult();
+    }
+
+    // The same slots as getScheduleInRange, streamed one row at a time rather
+    // than paged. pageToken and pageSize aren't used.
+    @Query("""
+            SELECT * FROM slots_by_participant_and_status
+            WHERE participantId = :participantId AND status = :status
+              AND slotId >= :fromSlotId AND slotId <= :toSlotId
+            ORDER BY slotId
+            """)
+    public QueryStreamEffect<SlotRow> streamScheduleInRange(ScheduleInput input) {
+        return queryStreamResult();
+    }
+
+    // All of a participant's rows, followed by every change to them as the
+    // view is updated
+    @Query(value = "SELECT * FROM slots_by_participant_and_status WHERE participantId = :participantId", streamUpdates = true)
+    public QueryStreamEffect<SlotRow> streamParticipantSlots(String participantId) {
+        return queryStreamResult();
+    }
 }
@@ -0,0 +1,101 @@
+package io.example.application;
+
+import akka.javasdk.Metadata;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Latency of the booking-to-view pipeline:
+//
+//   BookingSlotEntity --event--> SlotToParticipantConsumer --command-->
+//   ParticipantSlotEntity --event--> ParticipantSlotsViewUpdater
+//
+// End-to-end lag is how long it takes a booking or cancellation to show up in
+// the view. The consumer hands the time the booking slot event was persisted
+// to the view updater through an in-process registry, rather than writing it
+// into the participant slot journal. Only events the consumer has just
+// handled are in the registry, so replays and rebuilds of the view aren't
+// measured. Once the registry is full the oldest entry is dropped.
+//
+// All numbers are per node. The end-to-end lag is only measured for events
+// whose consumer and view updater run on the same node, so on a multi-node
+// deployment it covers a share of the events, and each node reports its own.
+//
+// Table updaters can't have dependencies injected, so the histograms live in
+// a single static registry that the components and the metrics endpoint share.
+public final class PipelineMetrics {
+
+    // event persisted by BookingSlotEntity -> consumer picks it up
+    public static final LatencyHistogram CONSUMER_LAG = new LatencyHistogram();
+    // consumer picks up event -> participant slot commands done
+    public static final LatencyHistogram CONSUMER_PROCESSING = new LatencyHistogram();
+    // event persisted by ParticipantSlotEntity -> view updater applies it
+    public static final LatencyHistogram VIEW_UPDATER_LAG = new LatencyHistogram();
+    // event persisted by BookingSlotEntity -> view row updated
+    public static final LatencyHistogram END_TO_END_LAG = new LatencyHistogram();
+
+    // Kinds of event passed to consumed and recordEndToEnd
+    public static final String BOOKED = "booked";
+    public static final String CANCELED = "canceled";
+
+    private static final int PENDING_MAX_ENTRIES = 10_000;
+    // guarded by itself
+    private static final Map<String, Instant> pendingEventTimes = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+            return size() > PENDING_MAX_ENTRIES;
+        }
+    };
+
+    private PipelineMetrics() {
+    }
+
+    public static Map<String, LatencyHistogram.Snapshot> snapshot() {
+        return Map.of(
+                "consumer-lag", CONSUMER_LAG.snapshot(),
+                "consumer-processing", CONSUMER_PROCESSING.snapshot(),
+                "view-updater-lag", VIEW_UPDATER_LAG.snapshot(),
+                "end-to-end-lag", END_TO_END_LAG.snapshot());
+    }
+
+    // The time an event was persisted, from the CloudEvent metadata it is
+    // delivered with
+    public static Optional<Instant> eventTime(Metadata metadata) {
+        return metadata.asCloudEvent().time().map(time -> time.toInstant());
+    }
+
+    // Called by the consumer for every participant of a booking or
+    // cancellation it passes on to the participant slot entities
+    public static void consumed(String kind, String slotId, String participantId, String bookingId, Instant eventTime) {
+        if (eventTime == null) {
+            return;
+        }
+        var key = pendingKey(kind, slotId, participantId, bookingId);
+        synchronized (pendingEventTimes) {
+            pendingEventTimes.put(key, eventTime);
+        }
+    }
+
+    // Called by the view updater once the row is updated
+    public static void recordEndToEnd(String kind, String slotId, String participantId, String bookingId) {
+        var key = pendingKey(kind, slotId, participantId, bookingId);
+        Instant eventTime;
+        synchronized (pendingEventTimes) {
+            eventTime = pendingEventTimes.remove(key);
+        }
+        recordSince(END_TO_END_LAG, eventTime);
+    }
+
+    private static String pendingKey(String kind, String slotId, String participantId, String bookingId) {
+        return kind + "/" + slotId + "/" + participantId + "/" + bookingId;
+    }
+
+    public static void recordSince(LatencyHistogram histogram, Instant since) {
+        if (since != null) {
+            histogram.record(Duration.between(since, Instant.now()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.example.application;
+
+import akka.javasdk.annotations.Component;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.annotations.Query;
+import akka.javasdk.view.TableUpdater;
+import akka.javasdk.view.View;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant.ParticipantType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// One row per slot with the participants available in it, grouped by type.
+// Finding a slot in which a student, an aircraft and an instructor are all
+// available is then a single query instead of one query per participant and
+// a join on the client.
+//
+// Rows follow BookingSlotEntity events and so mirror the available set of the
+// slot's Timeslot: booked participants are no longer available, and canceling
+// a booking makes them available again.
+@Component(id = "view-slot-availability")
+public class SlotAvailabilityView extends View {
+
+    @Consume.FromEventSourcedEntity(BookingSlotEntity.class)
+    public static class SlotAvailabilityUpdater extends TableUpdater<SlotAvailabilityRow> {
+
+        public Effect<SlotAvailabilityRow> onEvent(BookingEvent event) {
+            return switch (event) {
+                case BookingEvent.ParticipantMarkedAvailable evt ->
+                        effects().updateRow(row(evt.slotId()).with(evt.participantId(), evt.participantType()));
+                case BookingEvent.ParticipantUnmarkedAvailable evt ->
+                        effects().updateRow(row(evt.slotId()).without(evt.participantId(), evt.participantType()));
+                case BookingEvent.ParticipantBooked evt ->
+                        effects().updateRow(row(evt.slotId()).without(evt.participantId(), evt.participantType()));
+                case BookingEvent.ParticipantCanceled evt ->
+                        effects().updateRow(row(evt.slotId()).with(evt.participantId(), evt.participantType()));
+            };
+        }
+
+        private SlotAvailabilityRow row(String slotId) {
+            return rowState() == null
+                    ? new SlotAvailabilityRow(slotId, List.of(), List.of(), List.of(), 0, 0, 0)
+                    : rowState();
+        }
+    }
+
+    // The counts are kept next to the lists so that queries can ask for "any"
+    // participant of a type
+    public record SlotAvailabilityRow(
+            String slotId,
+            List<String> students,
+            List<String> aircraft,
+            List<String> instructors,
+            int studentCount,
+            int aircraftCount,
+            int instructorCount) {
+
+        SlotAvailabilityRow with(String participantId, ParticipantType participantType) {
+            return update(participantType, ids -> {
+                if (!ids.contains(participantId)) {
+                    ids.add(participantId);
+                }
+            });
+        }
+
+        SlotAvailabilityRow without(String participantId, ParticipantType participantType) {
+            return update(participantType, ids -> ids.remove(participantId));
+        }
+
+        private SlotAvailabilityRow update(
+                ParticipantType participantType, Consumer<List<String>> change) {
+            var students = new ArrayList<>(this.students);
+            var aircraft = new ArrayList<>(this.aircraft);
+            var instructors = new ArrayList<>(this.instructors);
+            change.accept(switch (participantType) {
+                case STUDENT -> students;
+                case AIRCRAFT -> aircraft;
+                case INSTRUCTOR -> instructors;
+            });
+            return new SlotAvailabilityRow(
+                    slotId, students, aircraft, instructors, students.size(), aircraft.size(), instructors.size());
+        }
+    }
+
+    public record TrioInput(
+            String studentId, String aircraftId, String instructorId, String fromSlotId, String toSlotId) {
+    }
+
+    public record StudentInput(String studentId, String fromSlotId, String toSlotId) {
+    }
+
+    public record SlotAvailabilityList(List<SlotAvailabilityRow> slots) {
+    }
+
+    // Slots in the range in which the student, aircraft and instructor are all
+    // available
+    @Query("""
+            SELECT * AS slots FROM slot_availability
+            WHERE slotId >= :fromSlotId AND slotId <= :toSlotId
+              AND :studentId = ANY(students)
+              AND :aircraftId = ANY(aircraft)
+              AND :instructorId = ANY(instructors)
+            ORDER BY slotId
+            """)
+    public QueryEffect<SlotAvailabilityList> getBookableSlotsForTrio(TrioInput input) {
+        return queryResult();
+    }
+
+    // Slots in the range in which the student and at least one aircraft and
+    // one instructor are available
+    @Query("""
+            SELECT * AS slots FROM slot_availability
+            WHERE slotId >= :fromSlotId AND slotId <= :toSlotId
+              AND :studentId = ANY(students)
+              AND aircraftCount > 0
+              AND instructorCount > 0
+            ORDER BY slotId
+            """)
+    public QueryEffect<SlotAvailabilityList> getBookableSlotsForStudent(StudentInput input) {
+        return queryResult();
+    }
+
+    public record SlotRangeInput(String fromSlotId, String toSlotId) {
+    }
+
+    // The rows of a range of slots, followed by every change to them as the
+    // view is updated
+    @Query(value = """
+            SELECT * FROM slot_availability
+            WHERE slotId >= :fromSlotId AND slotId <= :toSlotId
+            """, streamUpdates = true)
+    public QueryStreamEffect<SlotAvailabilityRow> streamSlotsInRange(SlotRangeInput input) {
+        return queryStreamResult();
+    }
+}
@@ -0,0 +1,42 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import akka.javasdk.keyvalueentity.KeyValueEntityContext;
+import io.example.domain.SlotConditions;
+
+// Durable record of the latest weather verdict for a slot, keyed by slot ID.
+// Verdicts are written ahead of time by the ConditionsPrecomputeAction (and
+// whenever the agent is asked on the booking path), so bookings can read a
+// recorded verdict instead of waiting on the model.
+@Component(id = "slot-conditions")
+public class SlotConditionsEntity extends KeyValueEntity<SlotConditions> {
+
+    private final String entityId;
+
+    public SlotConditionsEntity(KeyValueEntityContext context) {
+        this.entityId = context.entityId();
+    }
+
+    @Override
+    public SlotConditions emptyState() {
+        return SlotConditions.unchecked(entityId);
+    }
+
+    public Effect<Done> recordConditions(SlotConditions conditions) {
+        var recorded = currentState().checkedAt();
+        if (recorded != null && recorded.isAfter(conditions.checkedAt())) {
+            // a newer verdict has already been recorded
+            return effects().reply(Done.getInstance());
+        }
+
+        return effects()
+                .updateState(conditions)
+                .thenReply(Done.getInstance());
+    }
+
+    public ReadOnlyEffect<SlotConditions> getConditions() {
+        return effects().reply(currentState());
+    }
+}
@@ -1,73 +1,244 @@
 package io.example.application;
 
+import akka.Done;
 import akka.javasdk.annotations.Component;
 import akka.javasdk.annotations.Consume;
 import akka.javasdk.client.ComponentClient;
 import akka.javasdk.consumer.Consumer;
+import com.typesafe.config.Config;
 import io.example.domain.BookingEvent;
 import io.example.domain.Participant;
+import io.example.domain.ParticipantCalendar;
+import io.example.domain.SlotId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 // This class is responsible for consuming events from the booking
 // slot entity and turning those into command calls on the
 // participant slot entity
+//
+// Commands are sent asynchronously. A booking (or cancellation) emits one
+// event per participant, but every one of those events carries all three
+// participants, so the event for the first participant sends the commands
+// for all three concurrently and the other two events need no work. Commands
+// on the participant slot entity are idempotent, so redelivered events are
+// harmless.
+//
+// Lag and processing time are recorded in PipelineMetrics, which also gets
+// the time of each booking or cancellation event so the view updater can
+// measure end-to-end lag. Every command sent is traced as a span of the
+// event's trace.
+//
+// Participant state is recorded in a ParticipantSlotEntity per slot and
+// participant, in a ParticipantCalendarEntity per participant and month, or
+// both, depending on flight.participant-state. Slots whose ID isn't an hour
+// are left out of the calendars.
 @Component(id = "booking-slot-consumer")
 @Consume.FromEventSourcedEntity(BookingSlotEntity.class)
 public class SlotToParticipantConsumer extends Consumer {
 
     private final ComponentClient client;
+    private final boolean slotEntities;
+    private final boolean calendars;
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    public SlotToParticipantConsumer(ComponentClient client) {
+    public SlotToParticipantConsumer(ComponentClient client, Config config) {
         this.client = client;
+        this.slotEntities = config.getBoolean("flight.participant-state.slot-entities");
+        this.calendars = config.getBoolean("flight.participant-state.calendars");
     }
 
     public Effect onEvent(BookingEvent event) {
-        switch (event) {
+        var eventTime = PipelineMetrics.eventTime(messageContext().metadata()).orElse(null);
+        PipelineMetrics.recordSince(PipelineMetrics.CONSUMER_LAG, eventTime);
+
+        return switch (event) {
             case BookingEvent.ParticipantBooked booked ->
-                    client
-                            .forEventSourcedEntity(participantSlotId(booked))
-                            .method(ParticipantSlotEntity::book)
-                            .invoke(new ParticipantSlotEntity.Commands.Book(
-                                    booked.slotId(), booked.participantId(), booked.participantType(), booked.bookingId()
-                            ));
+                    forBooking(
+                            new Participant(booked.participantId(), booked.participantType()),
+                            booked.participants(),
+                            participant -> book(
+                            booked.slotId(), participant.id(), participant.participantType(), booked.bookingId(),
+                            eventTime));
             case BookingEvent.ParticipantCanceled cancelled ->
-                    client
-                            .forEventSourcedEntity(participantSlotId(cancelled))
-                            .method(ParticipantSlotEntity::cancel)
-                            .invoke(new ParticipantSlotEntity.Commands.Cancel(
-                                    cancelled.slotId(), cancelled.participantId(), cancelled.participantType(), cancelled.bookingId()
-                            ));
+                    forBooking(
+                            new Participant(cancelled.participantId(), cancelled.participantType()),
+                            cancelled.participants(),
+                            participant -> cancel(
+                            cancelled.slotId(), participant.id(), participant.participantType(), cancelled.bookingId(),
+                            eventTime));
             case BookingEvent.ParticipantMarkedAvailable markedAvailable ->
-                    client
-                            .forEventSourcedEntity(participantSlotId(markedAvailable))
-                            .method(ParticipantSlotEntity::markAvailable)
-                            .invoke(new ParticipantSlotEntity.Commands.MarkAvailable(
-                                    markedAvailable.slotId(), markedAvailable.participantId(), markedAvailable.participantType()
-                            ));
+                    effects().asyncDone(markAvailable(
+                            markedAvailable.slotId(), markedAvailable.participantId(), markedAvailable.participantType()));
             case  BookingEvent.ParticipantUnmarkedAvailable unmarkedAvailable ->
-                    client
-                            .forEventSourcedEntity(participantSlotId(unmarkedAvailable))
-                            .method(ParticipantSlotEntity::unmarkAvailable)
-                            .invoke(new ParticipantSlotEntity.Commands.UnmarkAvailable(
-                                    unmarkedAvailable.slotId(),  unmarkedAvailable.participantId(), unmarkedAvailable.participantType()
-                            ));
+                    effects().asyncDone(unmarkAvailable(
+                            unmarkedAvailable.slotId(), unmarkedAvailable.participantId(), unmarkedAvailable.participantType()));
+        };
+    }
+
+    private CompletionStage<Done> markAvailable(
+            String slotId, String participantId, Participant.ParticipantType participantType) {
+        return dispatch(
+                slotId,
+                () -> traced("ParticipantSlotEntity.markAvailable", slotId, participantId, null, () -> client
+                        .forEventSourcedEntity(participantSlotId(slotId, participantId))
+                        .method(ParticipantSlotEntity::markAvailable)
+                        .invokeAsync(new ParticipantSlotEntity.Commands.MarkAvailable(
+                                slotId, participantId, participantType))),
+                () -> traced("ParticipantCalendarEntity.markAvailable", slotId, participantId, null, () -> client
+                        .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, slotId))
+                        .method(ParticipantCalendarEntity::markAvailable)
+                        .invokeAsync(new ParticipantCalendarEntity.Command.MarkAvailable(
+                                slotId, participantId, participantType))));
+    }
+
+    private CompletionStage<Done> unmarkAvailable(
+            String slotId, String participantId, Participant.ParticipantType participantType) {
+        return dispatch(
+                slotId,
+                () -> traced("ParticipantSlotEntity.unmarkAvailable", slotId, participantId, null, () -> client
+                        .forEventSourcedEntity(participantSlotId(slotId, participantId))
+                        .method(ParticipantSlotEntity::unmarkAvailable)
+                        .invokeAsync(new ParticipantSlotEntity.Commands.UnmarkAvailable(
+                                slotId, participantId, participantType))),
+                () -> traced("ParticipantCalendarEntity.unmarkAvailable", slotId, participantId, null, () -> client
+                        .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, slotId))
+                        .method(ParticipantCalendarEntity::unmarkAvailable)
+                        .invokeAsync(new ParticipantCalendarEntity.Command.UnmarkAvailable(
+                                slotId, participantId, participantType))));
+    }
+
+    // Events persisted before events carried the whole booking are handled one
+    // participant at a time.
+    private Effect forBooking(
+            Participant participant,
+            List<Participant> participants,
+            Function<Participant, CompletionStage<Done>> command) {
+        var started = Instant.now();
+        if (participants == null) {
+            return effects().asyncDone(timed(started, command.apply(participant)));
+        }
+        if (!participants.getFirst().equals(participant)) {
+            // already handled with the event for the first participant
+            return effects().done();
+        }
+
+        var commands = participants.stream()
+                .map(p -> command.apply(p).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+        return effects().asyncDone(
+                timed(started, CompletableFuture.allOf(commands).thenApply(__ -> Done.getInstance())));
+    }
+
+    private CompletionStage<Done> timed(Instant started, CompletionStage<Done> commands) {
+        return commands.thenApply(done -> {
+            PipelineMetrics.recordSince(PipelineMetrics.CONSUMER_PROCESSING, started);
+            return done;
+        });
+    }
+
+    private CompletionStage<Done> book(
+            String slotId,
+            String participantId,
+            Participant.ParticipantType participantType,
+            String bookingId,
+            Instant bookingEventTime) {
+        if (slotEntities) {
+            PipelineMetrics.consumed(PipelineMetrics.BOOKED, slotId, participantId, bookingId, bookingEventTime);
+        }
+        return dispatch(
+                slotId,
+                () -> traced("ParticipantSlotEntity.book", slotId, participantId, bookingId, () -> client
+                        .forEventSourcedEntity(participantSlotId(slotId, participantId))
+                        .method(ParticipantSlotEntity::book)
+                        .invokeAsync(new ParticipantSlotEntity.Commands.Book(
+                                slotId, participantId, participantType, bookingId))),
+                () -> traced("ParticipantCalendarEntity.book", slotId, participantId, bookingId, () -> client
+                        .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, slotId))
+                        .method(ParticipantCalendarEntity::book)
+                        .invokeAsync(new ParticipantCalendarEntity.Command.Book(
+                                slotId, participantId, participantType, bookingId))));
+    }
+
+    private CompletionStage<Done> cancel(
+            String slotId,
+            String participantId,
+            Participant.ParticipantType participantType,
+            String bookingId,
+            Instant bookingEventTime) {
+        if (slotEntities) {
+            PipelineMetrics.consumed(PipelineMetrics.CANCELED, slotId, participantId, bookingId, bookingEventTime);
+        }
+        return dispatch(
+                slotId,
+                () -> traced("ParticipantSlotEntity.cancel", slotId, participantId, bookingId, () -> client
+                        .forEventSourcedEntity(participantSlotId(slotId, participantId))
+                        .method(ParticipantSlotEntity::cancel)
+                        .invokeAsync(new ParticipantSlotEntity.Commands.Cancel(
+                                slotId, participantId, participantType, bookingId))),
+                () -> traced("ParticipantCalendarEntity.cancel", slotId, participantId, bookingId, () -> client
+                        .forEventSourcedEntity(ParticipantCalendar.calendarId(participantId, slotId))
+                        .method(ParticipantCalendarEntity::cancel)
+                        .invokeAsync(new ParticipantCalendarEntity.Command.Cancel(
+                                slotId, participantId, participantType, bookingId))));
+    }
+
+    // Sends the command to the participant slot entity and/or the calendar,
+    // as configured
+    private CompletionStage<Done> dispatch(
+            String slotId,
+            Supplier<CompletionStage<Done>> toSlotEntity,
+            Supplier<CompletionStage<Done>> toCalendar) {
+        var toCalendars = calendars && hasCalendar(slotId);
+        if (slotEntities && toCalendars) {
+            return toSlotEntity.get().thenCombine(toCalendar.get(), (done, __) -> done);
+        }
+        if (slotEntities) {
+            return toSlotEntity.get();
         }
-        return effects().done();
+        if (toCalendars) {
+            return toCalendar.get();
+        }
+        return CompletableFuture.completedFuture(Done.getInstance());
+    }
+
+    // Calendars are kept per month, so a slot whose ID isn't an hour
+    // (YYYY-MM-DD-HH) has no calendar. Its events are skipped for the
+    // calendars rather than failing the consumer, which would retry the event
+    // forever and hold up every event after it.
+    private boolean hasCalendar(String slotId) {
+        if (SlotId.isValid(slotId)) {
+            return true;
+        }
+        logger.warn("Slot ID {} is not an hour, not recording it in the participant calendars", slotId);
+        return false;
+    }
+
+    // Must be called while handling the event, the span is started from the
+    // message context
+    private CompletionStage<Done> traced(
+            String name,
+            String slotId,
+            String participantId,
+            String bookingId,
+            Supplier<CompletionStage<Done>> call) {
+        var ids = Spans.attributes(
+                Spans.SLOT_ID, slotId, Spans.PARTICIPANT_ID, participantId, Spans.BOOKING_ID, bookingId);
+        return Spans.traceAsync(messageContext().tracing(), name, ids, call);
     }
 
     // Participant slots are keyed by a derived key made up of
     // {slotId}-{participantId}
     // We don't need the participant type here because the participant IDs
     // should always be unique/UUIDs
-    private String participantSlotId(BookingEvent event) {
-        return switch (event) {
-            case BookingEvent.ParticipantBooked evt -> evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantUnmarkedAvailable evt ->
-                    evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantMarkedAvailable evt -> evt.slotId() + "-" + evt.participantId();
-            case BookingEvent.ParticipantCanceled evt -> evt.slotId() + "-" + evt.participantId();
-        };
+    private String participantSlotId(String slotId, String participantId) {
+        return slotId + "-" + participantId;
     }
 }
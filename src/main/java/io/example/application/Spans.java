@@ -0,0 +1,96 @@
+package io.example.application;
+
+import akka.javasdk.Tracing;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+// Spans for the steps of handling a request, so a trace shows whether the
+// time went into the agent, an entity or the consumer. Spans are children of
+// the span the runtime started for the request or message, and are only
+// created when tracing is enabled (see the tracing section of
+// application.conf). Passing a null Tracing runs the step untraced.
+//
+// Slot, booking and participant IDs are set as attributes so traces can be
+// found by them.
+public final class Spans {
+
+    public static final String SLOT_ID = "flight.slot_id";
+    public static final String BOOKING_ID = "flight.booking_id";
+    public static final String PARTICIPANT_ID = "flight.participant_id";
+
+    private Spans() {
+    }
+
+    // Key-value pairs as span attributes, leaving out null values
+    public static Map<String, String> attributes(String... keysAndValues) {
+        var attributes = new LinkedHashMap<String, String>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            if (keysAndValues[i + 1] != null) {
+                attributes.put(keysAndValues[i], keysAndValues[i + 1]);
+            }
+        }
+        return attributes;
+    }
+
+    // Sets the attributes on the span of the request or message itself
+    public static void tag(Tracing tracing, Map<String, String> attributes) {
+        if (tracing != null) {
+            tracing.parentSpan().ifPresent(span -> attributes.forEach(span::setAttribute));
+        }
+    }
+
+    public static <T> CompletionStage<T> traceAsync(
+            Tracing tracing, String name, Map<String, String> attributes, Supplier<CompletionStage<T>> step) {
+        var span = start(tracing, name, attributes);
+        if (span == null) {
+            return step.get();
+        }
+        try {
+            return step.get().whenComplete((result, ex) -> end(span, ex));
+        } catch (RuntimeException ex) {
+            end(span, ex);
+            throw ex;
+        }
+    }
+
+    public static <T> T trace(Tracing tracing, String name, Map<String, String> attributes, Supplier<T> step) {
+        var span = start(tracing, name, attributes);
+        if (span == null) {
+            return step.get();
+        }
+        try {
+            var result = step.get();
+            end(span, null);
+            return result;
+        } catch (RuntimeException ex) {
+            end(span, ex);
+            throw ex;
+        }
+    }
+
+    private static Span start(Tracing tracing, String name, Map<String, String> attributes) {
+        if (tracing == null) {
+            return null;
+        }
+        var span = tracing.startSpan(name).orElse(null);
+        if (span != null) {
+            attributes.forEach(span::setAttribute);
+        }
+        return span;
+    }
+
+    private static void end(Span span, Throwable ex) {
+        if (ex != null) {
+            var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            span.recordException(cause);
+            span.setStatus(StatusCode.ERROR, String.valueOf(cause.getMessage()));
+        }
+        span.end();
+    }
+}
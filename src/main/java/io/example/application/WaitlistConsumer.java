@@ -0,0 +1,152 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.annotations.Consume;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.consumer.Consumer;
+import io.example.domain.BookingEvent;
+import io.example.domain.Participant;
+import io.example.domain.SlotId;
+import io.example.domain.Timeslot;
+import io.example.domain.Waitlist;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+// Promotes waitlisted booking requests into bookings. Whenever a slot may
+// have become bookable for someone on its waitlist, i.e. a booking was
+// canceled or a participant was marked available, the waitlist is checked
+// and the first entry whose participants are all available is booked, then
+// the next one, until none can be. Canceling a booking makes its
+// participants available again (see Timeslot.cancelBooking), so a cancel can
+// promote an entry with the same participants as well as one that only
+// needed some of them.
+//
+// Once the slot has started nothing is promoted, and the waitlist is expired
+// instead, see WaitlistEntity. Slots whose ID isn't an hour (YYYY-MM-DD-HH)
+// can't have a waitlist, see FlightEndpoint.joinWaitlist, so their events are
+// skipped.
+//
+// The weather check goes through the FlightConditionsChecker like any other
+// booking, so a cached or recorded verdict for the slot is reused. Nothing is
+// promoted while the weather is unsuitable.
+//
+// Failures are logged and the event is acknowledged; the entries stay on the
+// waitlist for the next event of the slot. Entries whose booking ID has
+// already been used in the slot (promoted before, but not removed) are
+// removed.
+@Component(id = "waitlist-promotion")
+@Consume.FromEventSourcedEntity(BookingSlotEntity.class)
+public class WaitlistConsumer extends Consumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistConsumer.class);
+
+    private final ComponentClient componentClient;
+    private final FlightConditionsChecker conditionsChecker;
+
+    public WaitlistConsumer(ComponentClient componentClient, FlightConditionsChecker conditionsChecker) {
+        this.componentClient = componentClient;
+        this.conditionsChecker = conditionsChecker;
+    }
+
+    public Effect onEvent(BookingEvent event) {
+        return switch (event) {
+            case BookingEvent.ParticipantCanceled evt when isFirstOfBooking(evt) ->
+                    effects().asyncDone(promote(evt.slotId()));
+            case BookingEvent.ParticipantMarkedAvailable evt -> effects().asyncDone(promote(evt.slotId()));
+            default -> effects().done();
+        };
+    }
+
+    // A cancellation emits one event per participant; only the first one
+    // needs to check the waitlist
+    private boolean isFirstOfBooking(BookingEvent.ParticipantCanceled evt) {
+        return evt.participants() == null
+                || evt.participants().getFirst().equals(new Participant(evt.participantId(), evt.participantType()));
+    }
+
+    // Package-private for tests
+    CompletionStage<Done> promote(String slotId) {
+        if (!SlotId.isValid(slotId)) {
+            // throwing here would fail the event and hold up every event after it
+            logger.warn("Slot ID {} is not an hour, skipping its waitlist", slotId);
+            return CompletableFuture.completedFuture(Done.getInstance());
+        }
+
+        CompletionStage<Done> promoted;
+        if (SlotId.hasStarted(slotId, LocalDateTime.now())) {
+            promoted = componentClient
+                    .forKeyValueEntity(slotId)
+                    .method(WaitlistEntity::expire)
+                    .invokeAsync();
+        } else {
+            promoted = promoteNext(slotId);
+        }
+        return promoted
+                .exceptionally(ex -> {
+                    var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                    logger.warn("Could not promote the waitlist of slot {}", slotId, cause);
+                    return Done.getInstance();
+                });
+    }
+
+    private CompletionStage<Done> promoteNext(String slotId) {
+        return componentClient
+                .forKeyValueEntity(slotId)
+                .method(WaitlistEntity::getWaitlist)
+                .invokeAsync()
+                .thenCompose(waitlist -> {
+                    if (waitlist.entries().isEmpty()) {
+                        return CompletableFuture.completedFuture(Done.getInstance());
+                    }
+                    return componentClient
+                            .forEventSourcedEntity(slotId)
+                            .method(BookingSlotEntity::getSlot)
+                            .invokeAsync()
+                            .thenCompose(timeslot -> promote(waitlist, timeslot));
+                });
+    }
+
+    private CompletionStage<Done> promote(Waitlist waitlist, Timeslot timeslot) {
+        var slotId = waitlist.slotId();
+        var settled = waitlist.settled(timeslot).stream()
+                .map(entry -> leave(slotId, entry.bookingId()).toCompletableFuture())
+                .toArray(CompletableFuture[]::new);
+
+        var next = waitlist.firstBookable(timeslot);
+        if (next.isEmpty()) {
+            return CompletableFuture.allOf(settled).thenApply(__ -> Done.getInstance());
+        }
+
+        var entry = next.get();
+        return CompletableFuture.allOf(settled)
+                .thenCompose(__ -> conditionsChecker.check(slotId))
+                .thenCompose(conditions -> {
+                    if (!Boolean.TRUE.equals(conditions.meetsRequirements())) {
+                        logger.debug("Weather unsuitable for slot {}, not promoting its waitlist", slotId);
+                        return CompletableFuture.completedFuture(Done.getInstance());
+                    }
+                    logger.debug("Promoting waitlisted booking {} for slot {}", entry.bookingId(), slotId);
+                    return componentClient
+                            .forEventSourcedEntity(slotId)
+                            .method(BookingSlotEntity::bookSlot)
+                            .invokeAsync(new BookingSlotEntity.Command.BookReservation(
+                                    entry.studentId(), entry.aircraftId(), entry.instructorId(), entry.bookingId()))
+                            .thenCompose(reply -> leave(slotId, entry.bookingId()))
+                            // other entries may be bookable with other participants
+                            .thenCompose(done -> promote(slotId));
+                });
+    }
+
+    private CompletionStage<Done> leave(String slotId, String bookingId) {
+        return componentClient
+                .forKeyValueEntity(slotId)
+                .method(WaitlistEntity::leave)
+                .invokeAsync(bookingId);
+    }
+}
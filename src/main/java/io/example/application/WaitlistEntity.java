@@ -0,0 +1,86 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.keyvalueentity.KeyValueEntity;
+import akka.javasdk.keyvalueentity.KeyValueEntityContext;
+import com.typesafe.config.Config;
+import io.example.domain.Waitlist;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+// The waitlist of a slot, keyed by slot ID. Students join with the booking
+// they want to make, and WaitlistConsumer books the first entry whose
+// participants become available. Joining and leaving are idempotent on the
+// booking ID.
+//
+// Once the slot has started, joining is rejected, the waitlist reads as
+// empty and expire deletes it. WaitlistConsumer expires the waitlist on the
+// first event of the slot after that.
+@Component(id = "waitlist")
+public class WaitlistEntity extends KeyValueEntity<Waitlist> {
+
+    private final String entityId;
+    private final int maxEntries;
+
+    public WaitlistEntity(KeyValueEntityContext context, Config config) {
+        this.entityId = context.entityId();
+        this.maxEntries = config.getInt("flight.waitlist.max-entries");
+    }
+
+    @Override
+    public Waitlist emptyState() {
+        return Waitlist.empty(entityId);
+    }
+
+    public Effect<Done> join(Command.Join cmd) {
+        if (currentState().isPast(LocalDateTime.now())) {
+            return effects().error("Timeslot has already started.");
+        }
+        if (currentState().contains(cmd.bookingId())) {
+            return effects().reply(Done.getInstance());
+        }
+        if (currentState().entries().size() >= maxEntries) {
+            return effects().error("Waitlist is full.");
+        }
+
+        var entry = new Waitlist.Entry(
+                cmd.bookingId(), cmd.studentId(), cmd.aircraftId(), cmd.instructorId(), Instant.now());
+        return effects()
+                .updateState(currentState().join(entry))
+                .thenReply(Done.getInstance());
+    }
+
+    public Effect<Done> leave(String bookingId) {
+        if (!currentState().contains(bookingId)) {
+            return effects().reply(Done.getInstance());
+        }
+        return effects()
+                .updateState(currentState().leave(bookingId))
+                .thenReply(Done.getInstance());
+    }
+
+    // Deletes the waitlist if the slot has started
+    public Effect<Done> expire() {
+        if (currentState().entries().isEmpty() || !currentState().isPast(LocalDateTime.now())) {
+            return effects().reply(Done.getInstance());
+        }
+        return effects()
+                .deleteEntity()
+                .thenReply(Done.getInstance());
+    }
+
+    public ReadOnlyEffect<Waitlist> getWaitlist() {
+        if (currentState().isPast(LocalDateTime.now())) {
+            return effects().reply(Waitlist.empty(entityId));
+        }
+        return effects().reply(currentState());
+    }
+
+    public sealed interface Command {
+        record Join(String bookingId, String studentId, String aircraftId, String instructorId)
+                implements Command {
+        }
+    }
+}
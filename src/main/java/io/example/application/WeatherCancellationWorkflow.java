@@ -0,0 +1,327 @@
+package io.example.application;
+
+import akka.Done;
+import akka.javasdk.annotations.Component;
+import akka.javasdk.client.ComponentClient;
+import akka.javasdk.workflow.Workflow;
+import akka.javasdk.workflow.WorkflowSettings;
+import com.typesafe.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+// Cancels the bookings in a range of slots that the weather no longer allows,
+// e.g. when a storm comes in. The workflow ID is the job ID.
+//
+// The slots with bookings in the range are looked up in the
+// ParticipantSlotsView one page at a time, and the weather of each slot is
+// checked again (once per slot, not per booking) through
+// FlightConditionsChecker.refresh. All
+// bookings in the slots that fail the check are then canceled. Both phases
+// work through their slots in batches of `parallelism` slots at a time, and
+// the state is updated after every batch, so the job's progress can be
+// followed with getState and a restarted job carries on where it stopped.
+//
+// Slots whose weather can't be checked (e.g. the model is unavailable) are
+// left alone and reported as failures. Canceling a booking that is already
+// canceled succeeds, so a retried batch doesn't fail or count it twice.
+@Component(id = "weather-cancellation")
+public class WeatherCancellationWorkflow extends Workflow<WeatherCancellationWorkflow.State> {
+
+    private static final Logger logger = LoggerFactory.getLogger(WeatherCancellationWorkflow.class);
+
+    private final ComponentClient componentClient;
+    private final FlightConditionsChecker conditionsChecker;
+    private final int parallelism;
+    private final int pageSize;
+
+    public WeatherCancellationWorkflow(
+            ComponentClient componentClient, FlightConditionsChecker conditionsChecker, Config config) {
+        this.componentClient = componentClient;
+        this.conditionsChecker = conditionsChecker;
+        this.parallelism = config.getInt("flight.weather-cancellation.parallelism");
+        this.pageSize = config.getInt("flight.weather-cancellation.page-size");
+    }
+
+    @Override
+    public WorkflowSettings settings() {
+        return WorkflowSettings.builder()
+                // weather checks may have to ask the agent
+                .stepTimeout(WeatherCancellationWorkflow::evaluateStep, Duration.ofMinutes(2))
+                .defaultStepTimeout(Duration.ofSeconds(30))
+                .defaultStepRecovery(maxRetries(3).failoverTo(WeatherCancellationWorkflow::failStep))
+                .build();
+    }
+
+    public Effect<Done> start(Command.Start cmd) {
+        if (currentState() != null) {
+            return effects().error("Weather cancellation already exists.");
+        }
+        if (cmd.fromSlotId() == null || cmd.toSlotId() == null) {
+            return effects().error("No slot range given.");
+        }
+
+        var state = State.started(commandContext().workflowId(), cmd.fromSlotId(), cmd.toSlotId(), Instant.now());
+
+        logger.info("Starting weather cancellation {} for slots {} to {}",
+                state.jobId(), state.fromSlotId(), state.toSlotId());
+        return effects()
+                .updateState(state)
+                .transitionTo(WeatherCancellationWorkflow::findSlotsStep)
+                .thenReply(Done.getInstance());
+    }
+
+    public ReadOnlyEffect<State> getState() {
+        if (currentState() == null) {
+            return effects().error("Weather cancellation does not exist.");
+        }
+        return effects().reply(currentState());
+    }
+
+    // Reads the next page of booked rows and adds their slots to the slots to
+    // evaluate. A range with many bookings is too much for one view response.
+    private StepEffect findSlotsStep() {
+        var state = currentState();
+        var page = componentClient
+                .forView()
+                .method(ParticipantSlotsView::getSlotsByStatusInRangePage)
+                .invoke(new ParticipantSlotsView.SlotRangePageInput(
+                        "booked", state.fromSlotId(), state.toSlotId(), state.pageToken(), pageSize));
+
+        // a row per booked participant, so three per booking
+        var slotIds = page.slots().stream().map(ParticipantSlotsView.SlotRow::slotId).toList();
+        var next = state.found(slotIds, page.nextPageToken());
+        if (page.hasMore()) {
+            return stepEffects()
+                    .updateState(next)
+                    .thenTransitionTo(WeatherCancellationWorkflow::findSlotsStep);
+        }
+
+        logger.info("Weather cancellation {} found {} booked slots", state.jobId(), next.slotsFound());
+        return stepEffects()
+                .updateState(next.withStatus(Status.EVALUATING))
+                .thenTransitionTo(WeatherCancellationWorkflow::evaluateStep);
+    }
+
+    // Checks the weather of the next batch of slots, and moves the slots that
+    // fail the check on to be canceled
+    private StepEffect evaluateStep() {
+        var state = currentState();
+        var batch = state.toEvaluate().subList(0, Math.min(parallelism, state.toEvaluate().size()));
+        var checks = batch.stream()
+                .map(slotId -> conditionsChecker.refresh(slotId)
+                        .thenApply(report -> Outcome.checked(!Boolean.TRUE.equals(report.meetsRequirements())))
+                        .exceptionally(ex -> {
+                            var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                            logger.warn("Weather check of slot {} for weather cancellation {} failed",
+                                    slotId, state.jobId(), cause);
+                            return Outcome.failed(slotId + ": " + cause.getMessage());
+                        })
+                        .toCompletableFuture())
+                .toList();
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).join();
+
+        var grounded = new ArrayList<String>();
+        var failures = new ArrayList<String>();
+        for (int i = 0; i < checks.size(); i++) {
+            var outcome = checks.get(i).join();
+            if (outcome.failure() != null) {
+                failures.add(outcome.failure());
+            } else if (outcome.grounded()) {
+                grounded.add(batch.get(i));
+            }
+        }
+
+        var next = state.evaluated(batch.size(), grounded, failures);
+        if (!next.toEvaluate().isEmpty()) {
+            return stepEffects()
+                    .updateState(next)
+                    .thenTransitionTo(WeatherCancellationWorkflow::evaluateStep);
+        }
+
+        logger.info("Weather cancellation {} checked {} slots, {} to cancel",
+                state.jobId(), next.slotsChecked(), next.toCancel().size());
+        return stepEffects()
+                .updateState(next.withStatus(Status.CANCELING))
+                .thenTransitionTo(WeatherCancellationWorkflow::cancelStep);
+    }
+
+    // Cancels all bookings in the next batch of grounded slots
+    private StepEffect cancelStep() {
+        var state = currentState();
+        if (state.toCancel().isEmpty()) {
+            return finish(state);
+        }
+
+        var batch = state.toCancel().subList(0, Math.min(parallelism, state.toCancel().size()));
+        var cancellations = batch.stream()
+                .map(slotId -> cancelSlot(slotId)
+                        .thenApply(Outcome::canceled)
+                        .exceptionally(ex -> {
+                            var cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                            logger.warn("Canceling slot {} for weather cancellation {} failed",
+                                    slotId, state.jobId(), cause);
+                            return Outcome.failed(slotId + ": " + cause.getMessage());
+                        })
+                        .toCompletableFuture())
+                .toList();
+        CompletableFuture.allOf(cancellations.toArray(CompletableFuture[]::new)).join();
+
+        var canceled = 0;
+        var failures = new ArrayList<String>();
+        for (var cancellation : cancellations) {
+            var outcome = cancellation.join();
+            if (outcome.failure() != null) {
+                failures.add(outcome.failure());
+            } else {
+                canceled += outcome.bookingsCanceled();
+            }
+        }
+
+        var next = state.canceled(batch.size(), canceled, failures);
+        if (!next.toCancel().isEmpty()) {
+            return stepEffects()
+                    .updateState(next)
+                    .thenTransitionTo(WeatherCancellationWorkflow::cancelStep);
+        }
+        return finish(next);
+    }
+
+    // Completes with the number of bookings canceled in the slot
+    private CompletionStage<Integer> cancelSlot(String slotId) {
+        return componentClient
+                .forEventSourcedEntity(slotId)
+                .method(BookingSlotEntity::getSlot)
+                .invokeAsync()
+                .thenCompose(timeslot -> {
+                    var bookings = timeslot.bookingsById().keySet().stream()
+                            .map(bookingId -> componentClient
+                                    .forEventSourcedEntity(slotId)
+                                    .method(BookingSlotEntity::cancelBooking)
+                                    .invokeAsync(bookingId)
+                                    // already canceled ones reply without participants
+                                    .thenApply(reply -> reply.participants().isEmpty() ? 0 : 1)
+                                    .toCompletableFuture())
+                            .toList();
+                    return CompletableFuture.allOf(bookings.toArray(CompletableFuture[]::new))
+                            .thenApply(__ -> bookings.stream().mapToInt(CompletableFuture::join).sum());
+                });
+    }
+
+    private StepEffect finish(State state) {
+        var done = state.finished(Status.COMPLETED, Instant.now());
+        logger.info("Weather cancellation {} completed: {} slots checked, {} grounded, {} bookings canceled, {} failures",
+                done.jobId(), done.slotsChecked(), done.slotsGrounded(), done.bookingsCanceled(), done.failures().size());
+        return stepEffects()
+                .updateState(done)
+                .thenEnd();
+    }
+
+    private StepEffect failStep() {
+        var state = currentState();
+        logger.error("Weather cancellation {} failed in status {}", state.jobId(), state.status());
+        return stepEffects()
+                .updateState(state.finished(Status.FAILED, Instant.now()))
+                .thenEnd();
+    }
+
+    private record Outcome(boolean grounded, int bookingsCanceled, String failure) {
+        static Outcome checked(boolean grounded) {
+            return new Outcome(grounded, 0, null);
+        }
+
+        static Outcome canceled(int bookings) {
+            return new Outcome(true, bookings, null);
+        }
+
+        static Outcome failed(String failure) {
+            return new Outcome(false, 0, failure);
+        }
+    }
+
+    public enum Status {
+        FINDING, EVALUATING, CANCELING, COMPLETED, FAILED
+    }
+
+    // `toEvaluate` and `toCancel` are the slots still to be worked through,
+    // the counts and failures the progress so far and, once finished, the
+    // summary of the job. `pageToken` is where finding the booked slots
+    // carries on.
+    public record State(
+            String jobId,
+            String fromSlotId,
+            String toSlotId,
+            Status status,
+            int slotsFound,
+            int slotsChecked,
+            int slotsGrounded,
+            int bookingsCanceled,
+            List<String> toEvaluate,
+            List<String> toCancel,
+            String pageToken,
+            List<String> failures,
+            Instant startedAt,
+            Instant finishedAt) {
+
+        static State started(String jobId, String fromSlotId, String toSlotId, Instant startedAt) {
+            return new State(jobId, fromSlotId, toSlotId, Status.FINDING, 0, 0, 0, 0,
+                    List.of(), List.of(), "", List.of(), startedAt, null);
+        }
+
+        // A slot's rows may be split across pages, and slot IDs sort
+        // chronologically, so the slots are kept sorted and unique
+        State found(List<String> slotIds, String nextPageToken) {
+            var found = new TreeSet<>(toEvaluate);
+            found.addAll(slotIds);
+            return new State(jobId, fromSlotId, toSlotId, status, found.size(), 0, 0, 0,
+                    List.copyOf(found), List.of(), nextPageToken, failures, startedAt, finishedAt);
+        }
+
+        State evaluated(int checked, List<String> grounded, List<String> newFailures) {
+            var toCancel = new ArrayList<>(this.toCancel);
+            toCancel.addAll(grounded);
+            return new State(jobId, fromSlotId, toSlotId, status, slotsFound,
+                    slotsChecked + checked, slotsGrounded + grounded.size(), bookingsCanceled,
+                    List.copyOf(toEvaluate.subList(checked, toEvaluate.size())), List.copyOf(toCancel),
+                    pageToken, concat(failures, newFailures), startedAt, finishedAt);
+        }
+
+        State canceled(int slots, int bookings, List<String> newFailures) {
+            return new State(jobId, fromSlotId, toSlotId, status, slotsFound, slotsChecked, slotsGrounded,
+                    bookingsCanceled + bookings, toEvaluate, List.copyOf(toCancel.subList(slots, toCancel.size())),
+                    pageToken, concat(failures, newFailures), startedAt, finishedAt);
+        }
+
+        State withStatus(Status status) {
+            return new State(jobId, fromSlotId, toSlotId, status, slotsFound, slotsChecked, slotsGrounded,
+                    bookingsCanceled, toEvaluate, toCancel, pageToken, failures, startedAt, finishedAt);
+        }
+
+        State finished(Status status, Instant finishedAt) {
+            return new State(jobId, fromSlotId, toSlotId, status, slotsFound, slotsChecked, slotsGrounded,
+                    bookingsCanceled, toEvaluate, toCancel, pageToken, failures, startedAt, finishedAt);
+        }
+
+        private static List<String> concat(List<String> first, List<String> second) {
+            if (second.isEmpty()) {
+                return first;
+            }
+            var all = new ArrayList<>(first);
+            all.addAll(second);
+            return List.copyOf(all);
+        }
+    }
+
+    public sealed interface Command {
+        record Start(String fromSlotId, String toSlotId) implements Command {
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.example.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The available and booked hours of many participants as HourBitsets, for
+// questions that span slots: whether a participant is already booked at an
+// hour, and the first hours at which several participants are all free. Checks
+// for a single hour are a word lookup; common free hours are found a word
+// (64 hours) at a time by ANDing the participants' words.
+//
+// An hour is free when the participant is available and not booked. Like
+// ParticipantCalendar, booking takes an hour out of the available set and
+// canceling puts it back. The index is built from the slots of participants'
+// calendars or from BookingEvents.
+//
+// Not thread-safe.
+public final class AvailabilityIndex {
+
+  private final Map<String, Hours> participants = new HashMap<>();
+
+  private static final class Hours {
+    final HourBitset available = new HourBitset();
+    final HourBitset booked = new HourBitset();
+  }
+
+  // Adds the slots of one of the participant's calendars
+  public void add(String participantId, List<ParticipantCalendar.CalendarSlot> slots) {
+    for (var slot : slots) {
+      if (ParticipantCalendar.BOOKED.equals(slot.status())) {
+        book(participantId, slot.slotId());
+      } else {
+        markAvailable(participantId, slot.slotId());
+      }
+    }
+  }
+
+  public void apply(BookingEvent event) {
+    switch (event) {
+      case BookingEvent.ParticipantMarkedAvailable evt ->
+          markAvailable(evt.participantId(), evt.slotId());
+      case BookingEvent.ParticipantUnmarkedAvailable evt ->
+          unmarkAvailable(evt.participantId(), evt.slotId());
+      case BookingEvent.ParticipantBooked evt -> book(evt.participantId(), evt.slotId());
+      case BookingEvent.ParticipantCanceled evt -> cancel(evt.participantId(), evt.slotId());
+    }
+  }
+
+  public void markAvailable(String participantId, String slotId) {
+    var hours = hours(participantId);
+    var hour = HourBitset.hourOf(slotId);
+    if (!hours.booked.get(hour)) {
+      hours.available.set(hour);
+    }
+  }
+
+  public void unmarkAvailable(String participantId, String slotId) {
+    hours(participantId).available.clear(HourBitset.hourOf(slotId));
+  }
+
+  public void book(String participantId, String slotId) {
+    var hours = hours(participantId);
+    var hour = HourBitset.hourOf(slotId);
+    hours.available.clear(hour);
+    hours.booked.set(hour);
+  }
+
+  public void cancel(String participantId, String slotId) {
+    var hours = hours(participantId);
+    var hour = HourBitset.hourOf(slotId);
+    if (hours.booked.get(hour)) {
+      hours.booked.clear(hour);
+      hours.available.set(hour);
+    }
+  }
+
+  public boolean isBooked(String participantId, String slotId) {
+    var hours = participants.get(participantId);
+    return hours != null && hours.booked.get(HourBitset.hourOf(slotId));
+  }
+
+  public boolean isFree(String participantId, String slotId) {
+    var hours = participants.get(participantId);
+    return hours != null && hours.available.get(HourBitset.hourOf(slotId));
+  }
+
+  // Up to `count` slot IDs from `fromSlotId` to `toSlotId` (both inclusive),
+  // in order, at which all the participants are free
+  public List<String> firstCommonFreeHours(
+      List<String> participantIds, String fromSlotId, String toSlotId, int count) {
+    var slotIds = new ArrayList<String>(count);
+    if (participantIds.isEmpty() || count < 1) {
+      return slotIds;
+    }
+    var available = new HourBitset[participantIds.size()];
+    for (int i = 0; i < available.length; i++) {
+      var hours = participants.get(participantIds.get(i));
+      if (hours == null) {
+        return slotIds;
+      }
+      available[i] = hours.available;
+    }
+
+    var from = HourBitset.hourOf(fromSlotId);
+    var to = HourBitset.hourOf(toSlotId);
+    for (long wordIndex = from >> 6; wordIndex <= to >> 6; wordIndex++) {
+      var common = -1L;
+      for (int i = 0; i < available.length && common != 0; i++) {
+        common &= available[i].word(wordIndex);
+      }
+      if (wordIndex == from >> 6) {
+        common &= -1L << from;
+      }
+      if (wordIndex == to >> 6) {
+        common &= -1L >>> (63 - (to & 63));
+      }
+      while (common != 0) {
+        slotIds.add(HourBitset.slotIdOf((wordIndex << 6) + Long.numberOfTrailingZeros(common)));
+        if (slotIds.size() == count) {
+          return slotIds;
+        }
+        common &= common - 1;
+      }
+    }
+    return slotIds;
+  }
+
+  public int participantCount() {
+    return participants.size();
+  }
+
+  private Hours hours(String participantId) {
+    return participants.computeIfAbsent(participantId, id -> new Hours());
+  }
+}
@@ -2,8 +2,14 @@ package io.example.domain;
 
 import akka.javasdk.annotations.TypeName;
 import io.example.domain.Participant.ParticipantType;
+import java.util.List;
 
 // The list of all events emitted by the BookingSlotEntity
+//
+// Booking and canceling emit one event per participant, and each of those
+// events also carries all participants of the booking, so that consumers can
+// handle the whole booking at once. Events persisted before this was added
+// have no participants list.
 public sealed interface BookingEvent {
 
   @TypeName("slot-reserved")
@@ -18,11 +24,31 @@ public sealed interface BookingEvent {
 
   @TypeName("reservation-booked")
   record ParticipantBooked(
-      String slotId, String participantId, ParticipantType participantType, String bookingId)
-      implements BookingEvent {}
+      String slotId,
+      String participantId,
+      ParticipantType participantType,
+      String bookingId,
+      List<Participant> participants)
+      implements BookingEvent {
+
+    public ParticipantBooked(
+        String slotId, String participantId, ParticipantType participantType, String bookingId) {
+      this(slotId, participantId, participantType, bookingId, null);
+    }
+  }
 
   @TypeName("booking-participant-canceled")
   record ParticipantCanceled(
-      String slotId, String participantId, ParticipantType participantType, String bookingId)
-      implements BookingEvent {}
+      String slotId,
+      String participantId,
+      ParticipantType participantType,
+      String bookingId,
+      List<Participant> participants)
+      implements BookingEvent {
+
+    public ParticipantCanceled(
+        String slotId, String participantId, ParticipantType participantType, String bookingId) {
+      this(slotId, participantId, participantType, bookingId, null);
+    }
+  }
 }
@@ -0,0 +1,179 @@
+package io.example.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.example.domain.Participant.ParticipantType;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Compact JSON encoding of a Timeslot, used for entity snapshots and replies.
+// Rather than a set of {"participant": {"id", "participantType"}, "bookingId"}
+// objects per booked participant, participant IDs are grouped by type, and
+// bookings are keyed by booking ID:
+//
+//   {"v": 1,
+//    "available": {"STUDENT": ["alice"], "AIRCRAFT": ["superplane"]},
+//    "bookings": {"booking4": {"STUDENT": ["bob"], "AIRCRAFT": ["cessna"],
+//                              "INSTRUCTOR": ["carol"]}},
+//    "canceled": ["booking3"]}
+//
+// Timeslots written in the original record layout are still read.
+public final class CompactTimeslotJson {
+
+  private static final int VERSION = 1;
+
+  private CompactTimeslotJson() {}
+
+  public static final class Serializer extends StdSerializer<Timeslot> {
+
+    public Serializer() {
+      super(Timeslot.class);
+    }
+
+    @Override
+    public void serialize(Timeslot timeslot, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeStartObject();
+      gen.writeNumberField("v", VERSION);
+
+      gen.writeObjectFieldStart("available");
+      for (Map.Entry<ParticipantType, Set<String>> ids : timeslot.availableByType().entrySet()) {
+        if (!ids.getValue().isEmpty()) {
+          gen.writeArrayFieldStart(ids.getKey().name());
+          for (String id : ids.getValue()) {
+            gen.writeString(id);
+          }
+          gen.writeEndArray();
+        }
+      }
+      gen.writeEndObject();
+
+      gen.writeObjectFieldStart("bookings");
+      for (Map.Entry<String, List<Timeslot.Booking>> booking :
+          timeslot.bookingsById().entrySet()) {
+        var participants = new ArrayList<Participant>(booking.getValue().size());
+        booking.getValue().forEach(b -> participants.add(b.participant()));
+        gen.writeFieldName(booking.getKey());
+        writeByType(gen, participants);
+      }
+      gen.writeEndObject();
+
+      if (!timeslot.canceledBookingIds().isEmpty()) {
+        gen.writeArrayFieldStart("canceled");
+        for (String bookingId : timeslot.canceledBookingIds()) {
+          gen.writeString(bookingId);
+        }
+        gen.writeEndArray();
+      }
+
+      gen.writeEndObject();
+    }
+
+    private static void writeByType(JsonGenerator gen, Iterable<Participant> participants)
+        throws IOException {
+      var byType = new EnumMap<ParticipantType, List<String>>(ParticipantType.class);
+      for (Participant participant : participants) {
+        byType
+            .computeIfAbsent(participant.participantType(), t -> new ArrayList<>())
+            .add(participant.id());
+      }
+
+      gen.writeStartObject();
+      for (Map.Entry<ParticipantType, List<String>> ids : byType.entrySet()) {
+        gen.writeArrayFieldStart(ids.getKey().name());
+        for (String id : ids.getValue()) {
+          gen.writeString(id);
+        }
+        gen.writeEndArray();
+      }
+      gen.writeEndObject();
+    }
+  }
+
+  public static final class Deserializer extends StdDeserializer<Timeslot> {
+
+    public Deserializer() {
+      super(Timeslot.class);
+    }
+
+    @Override
+    public Timeslot deserialize(JsonParser parser, DeserializationContext context)
+        throws IOException {
+      JsonNode node = parser.getCodec().readTree(parser);
+      return node.has("v") ? readCompact(node) : readRecordLayout(node);
+    }
+
+    private static Timeslot readCompact(JsonNode node) {
+      var available = new EnumMap<ParticipantType, Set<String>>(ParticipantType.class);
+      for (ParticipantType type : ParticipantType.values()) {
+        available.put(type, new HashSet<>());
+      }
+      readByType(
+          node.path("available"),
+          participant -> available.get(participant.participantType()).add(participant.id()));
+
+      var bookings = new HashSet<Timeslot.Booking>();
+      var bookingIds = node.path("bookings").fieldNames();
+      while (bookingIds.hasNext()) {
+        var bookingId = bookingIds.next();
+        readByType(
+            node.path("bookings").get(bookingId),
+            participant -> bookings.add(new Timeslot.Booking(participant, bookingId)));
+      }
+
+      // written oldest first, see Timeslot.cancelBooking
+      var canceled = new LinkedHashSet<String>();
+      for (JsonNode bookingId : node.path("canceled")) {
+        canceled.add(bookingId.asText());
+      }
+
+      return new Timeslot(bookings, available, canceled);
+    }
+
+    private static void readByType(JsonNode byType, Consumer<Participant> participants) {
+      var types = byType.fieldNames();
+      while (types.hasNext()) {
+        var type = types.next();
+        var participantType = ParticipantType.valueOf(type);
+        for (JsonNode id : byType.get(type)) {
+          participants.accept(new Participant(id.asText(), participantType));
+        }
+      }
+    }
+
+    // {"bookings": [{"participant": {...}, "bookingId": ...}], "available": [{...}]}
+    private static Timeslot readRecordLayout(JsonNode node) {
+      Set<Participant> available = new HashSet<>();
+      for (JsonNode participant : node.path("available")) {
+        available.add(readParticipant(participant));
+      }
+
+      Set<Timeslot.Booking> bookings = new HashSet<>();
+      for (JsonNode booking : node.path("bookings")) {
+        bookings.add(
+            new Timeslot.Booking(
+                readParticipant(booking.path("participant")), booking.path("bookingId").asText()));
+      }
+
+      return new Timeslot(bookings, available);
+    }
+
+    private static Participant readParticipant(JsonNode participant) {
+      return new Participant(
+          participant.path("id").asText(),
+          ParticipantType.valueOf(participant.path("participantType").asText()));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package io.example.domain;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// A set of hours as a bitset of primitive longs, one bit per hour. Hours are
+// counted from 1970-01-01T00:00 in the same local time as slot IDs (see
+// hourOf), so hour n + 1 is always the slot after hour n. The words cover the
+// hours from the lowest to the highest word that has been set and grow in
+// either direction as needed; a year of hourly slots is 137 words.
+//
+// Not thread-safe. The static methods work on a plain long[] in the layout of
+// BitSet.toLongArray, for bitmaps that are part of immutable state (see
+// ParticipantCalendar).
+public final class HourBitset {
+
+  private long firstWord;
+  private long[] words = new long[0];
+
+  public static long hourOf(String slotId) {
+    return SlotId.parse(slotId).toEpochSecond(ZoneOffset.UTC) / 3600;
+  }
+
+  public static String slotIdOf(long hour) {
+    return SlotId.of(LocalDateTime.ofEpochSecond(hour * 3600, 0, ZoneOffset.UTC));
+  }
+
+  public boolean get(long hour) {
+    return (word(hour >> 6) & (1L << hour)) != 0;
+  }
+
+  public void set(long hour) {
+    var index = ensureWord(hour >> 6);
+    words[index] |= 1L << hour;
+  }
+
+  public void clear(long hour) {
+    var wordIndex = (hour >> 6) - firstWord;
+    if (wordIndex >= 0 && wordIndex < words.length) {
+      words[(int) wordIndex] &= ~(1L << hour);
+    }
+  }
+
+  // The word holding hours wordIndex * 64 to wordIndex * 64 + 63, with the
+  // lowest hour in the lowest bit; 0 outside the words held
+  public long word(long wordIndex) {
+    var index = wordIndex - firstWord;
+    return index >= 0 && index < words.length ? words[(int) index] : 0L;
+  }
+
+  public int cardinality() {
+    var count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  // Whether the bit is set in the words, with bit n in word n / 64
+  public static boolean isSet(long[] words, int bit) {
+    var index = bit >> 6;
+    return index < words.length && (words[index] & (1L << bit)) != 0;
+  }
+
+  // The word at the index; 0 beyond the end of the words
+  public static long wordAt(long[] words, int index) {
+    return index < words.length ? words[index] : 0L;
+  }
+
+  // A copy of the words with the bit set or cleared, or the words themselves
+  // if the bit already has that value. Trailing zero words are dropped, as in
+  // BitSet.toLongArray, so equal sets of bits have equal words.
+  public static long[] withBit(long[] words, int bit, boolean value) {
+    if (isSet(words, bit) == value) {
+      return words;
+    }
+    var index = bit >> 6;
+    if (value) {
+      var copy = Arrays.copyOf(words, Math.max(words.length, index + 1));
+      copy[index] |= 1L << bit;
+      return copy;
+    }
+    var copy = words.clone();
+    copy[index] &= ~(1L << bit);
+    var length = copy.length;
+    while (length > 0 && copy[length - 1] == 0) {
+      length--;
+    }
+    return length == copy.length ? copy : Arrays.copyOf(copy, length);
+  }
+
+  private int ensureWord(long wordIndex) {
+    if (words.length == 0) {
+      firstWord = wordIndex;
+      words = new long[1];
+      return 0;
+    }
+    if (wordIndex < firstWord) {
+      var grown = new long[(int) (firstWord - wordIndex) + words.length];
+      System.arraycopy(words, 0, grown, (int) (firstWord - wordIndex), words.length);
+      words = grown;
+      firstWord = wordIndex;
+    } else if (wordIndex >= firstWord + words.length) {
+      // grow by at least half again, so setting hours in order is amortized O(1)
+      var needed = (int) (wordIndex - firstWord) + 1;
+      words = Arrays.copyOf(words, Math.max(needed, words.length + words.length / 2));
+    }
+    return (int) (wordIndex - firstWord);
+  }
+}
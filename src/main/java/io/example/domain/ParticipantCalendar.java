@@ -0,0 +1,188 @@
+package io.example.domain;
+
+import io.example.domain.Participant.ParticipantType;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// A participant's availability and bookings for one calendar month. Hours are
+// kept in two bitmaps, one bit per hour of the month (bit (day - 1) * 24 +
+// hour), so a month of hourly slots takes two arrays of at most 12 longs
+// instead of up to 744 ParticipantSlotEntity instances. Booked hours also
+// carry the booking ID. The bitmaps are read and changed with the word
+// operations of HourBitset; a change copies the bitmap it changes, so a
+// calendar is never modified once created. equals, hashCode and toString
+// compare and show the bits rather than the array references.
+//
+// An hour is either available, booked or neither. Like ParticipantSlotEntity,
+// a booked hour can't be marked or unmarked available, only canceled, which
+// makes it available again, and only available hours can be booked. Changes
+// that don't apply return the calendar unchanged.
+//
+// `month` is the month in the format YYYY-MM.
+public record ParticipantCalendar(
+    String participantId,
+    ParticipantType participantType,
+    String month,
+    long[] available,
+    long[] booked,
+    Map<String, String> bookingIds) {
+
+  public static final String AVAILABLE = "available";
+  public static final String BOOKED = "booked";
+
+  public record CalendarSlot(String slotId, String status, String bookingId) {}
+
+  public static ParticipantCalendar empty(
+      String participantId, ParticipantType participantType, String month) {
+    return new ParticipantCalendar(
+        participantId, participantType, month, new long[0], new long[0], Map.of());
+  }
+
+  // The ID of the participant's calendar entity for the month of the slot
+  public static String calendarId(String participantId, String slotId) {
+    return calendarId(participantId, YearMonth.from(SlotId.parse(slotId)));
+  }
+
+  public static String calendarId(String participantId, YearMonth month) {
+    return participantId + "-" + month;
+  }
+
+  public static String monthOf(String slotId) {
+    return YearMonth.from(SlotId.parse(slotId)).toString();
+  }
+
+  public boolean isAvailable(String slotId) {
+    return HourBitset.isSet(available, hourOf(slotId));
+  }
+
+  public boolean isBooked(String slotId) {
+    return HourBitset.isSet(booked, hourOf(slotId));
+  }
+
+  public ParticipantCalendar markAvailable(String slotId) {
+    if (isAvailable(slotId) || isBooked(slotId)) {
+      return this;
+    }
+    return withAvailable(slotId, true);
+  }
+
+  public ParticipantCalendar unmarkAvailable(String slotId) {
+    if (!isAvailable(slotId)) {
+      return this;
+    }
+    return withAvailable(slotId, false);
+  }
+
+  public ParticipantCalendar book(String slotId, String bookingId) {
+    if (!isAvailable(slotId)) {
+      return this;
+    }
+    var bookingIds = new HashMap<>(this.bookingIds);
+    bookingIds.put(slotId, bookingId);
+    return new ParticipantCalendar(
+        participantId,
+        participantType,
+        month,
+        HourBitset.withBit(available, hourOf(slotId), false),
+        HourBitset.withBit(booked, hourOf(slotId), true),
+        bookingIds);
+  }
+
+  public ParticipantCalendar cancel(String slotId) {
+    if (!isBooked(slotId)) {
+      return this;
+    }
+    var bookingIds = new HashMap<>(this.bookingIds);
+    bookingIds.remove(slotId);
+    return new ParticipantCalendar(
+        participantId,
+        participantType,
+        month,
+        HourBitset.withBit(available, hourOf(slotId), true),
+        HourBitset.withBit(booked, hourOf(slotId), false),
+        bookingIds);
+  }
+
+  // The available and booked slots of the month in slot order. Only the set
+  // bits are visited, a word at a time.
+  public List<CalendarSlot> slots() {
+    var firstHour = YearMonth.parse(month).atDay(1).atStartOfDay();
+    var slots = new ArrayList<CalendarSlot>();
+    var words = Math.max(available.length, booked.length);
+    for (int index = 0; index < words; index++) {
+      var availableWord = HourBitset.wordAt(available, index);
+      var hours = availableWord | HourBitset.wordAt(booked, index);
+      while (hours != 0) {
+        var bit = Long.numberOfTrailingZeros(hours);
+        var slotId = SlotId.of(firstHour.plusHours((index << 6) + bit));
+        if ((availableWord & (1L << bit)) != 0) {
+          slots.add(new CalendarSlot(slotId, AVAILABLE, null));
+        } else {
+          slots.add(new CalendarSlot(slotId, BOOKED, bookingIds.get(slotId)));
+        }
+        hours &= hours - 1;
+      }
+    }
+    return slots;
+  }
+
+  private ParticipantCalendar withAvailable(String slotId, boolean isAvailable) {
+    return new ParticipantCalendar(
+        participantId,
+        participantType,
+        month,
+        HourBitset.withBit(available, hourOf(slotId), isAvailable),
+        booked,
+        bookingIds);
+  }
+
+  // The bit of the slot's hour. Throws an IllegalArgumentException if the
+  // slot isn't in this calendar's month
+  private int hourOf(String slotId) {
+    var hour = SlotId.parse(slotId);
+    if (!YearMonth.from(hour).toString().equals(month)) {
+      throw new IllegalArgumentException("Slot " + slotId + " is not in " + month);
+    }
+    return (hour.getDayOfMonth() - 1) * 24 + hour.getHour();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof ParticipantCalendar other
+        && participantId.equals(other.participantId)
+        && participantType == other.participantType
+        && month.equals(other.month)
+        && Arrays.equals(available, other.available)
+        && Arrays.equals(booked, other.booked)
+        && bookingIds.equals(other.bookingIds);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        participantId,
+        participantType,
+        month,
+        Arrays.hashCode(available),
+        Arrays.hashCode(booked),
+        bookingIds);
+  }
+
+  @Override
+  public String toString() {
+    return ("ParticipantCalendar[participantId=%s, participantType=%s, month=%s, "
+            + "available=%s, booked=%s, bookingIds=%s]")
+        .formatted(
+            participantId,
+            participantType,
+            month,
+            Arrays.toString(available),
+            Arrays.toString(booked),
+            bookingIds);
+  }
+}
@@ -0,0 +1,20 @@
+package io.example.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// The most recent weather verdict recorded for a timeslot, along with what
+// ruled the slot out (if anything) and when it was checked. A slot that has
+// never been checked has no checkedAt time.
+public record SlotConditions(
+    String slotId, boolean meetsRequirements, String limitingFactor, Instant checkedAt) {
+
+  public static SlotConditions unchecked(String slotId) {
+    return new SlotConditions(slotId, false, null, null);
+  }
+
+  // A verdict is fresh if it was checked no longer than maxAge before the given time
+  public boolean isFreshAt(Instant time, Duration maxAge) {
+    return checkedAt != null && !checkedAt.plus(maxAge).isBefore(time);
+  }
+}
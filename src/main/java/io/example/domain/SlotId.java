@@ -0,0 +1,71 @@
+package io.example.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Helpers for timeslot IDs. A timeslot ID is the hour of the slot in the
+// format YYYY-MM-DD-HH, e.g. 2025-08-08-09 for August 8th, 2025 at 9am local
+// time. Because the format is fixed-width, slot IDs sort chronologically as
+// plain strings, which is what lets views filter on slot ID ranges.
+public final class SlotId {
+
+  public static final DateTimeFormatter FORMAT =
+      DateTimeFormatter.ofPattern("uuuu-MM-dd-HH").withResolverStyle(ResolverStyle.STRICT);
+
+  private SlotId() {}
+
+  public static String of(LocalDateTime hour) {
+    return FORMAT.format(hour);
+  }
+
+  // Throws a DateTimeParseException if the slot ID isn't a valid hour
+  public static LocalDateTime parse(String slotId) {
+    return LocalDateTime.parse(slotId, FORMAT);
+  }
+
+  // Whether the slot ID is a valid hour. Single slots can be marked and
+  // booked under any ID, so code that needs the hour checks this first
+  public static boolean isValid(String slotId) {
+    try {
+      parse(slotId);
+      return true;
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  // Whether the slot's hour has begun at the given local time
+  public static boolean hasStarted(String slotId, LocalDateTime now) {
+    return !parse(slotId).isAfter(now);
+  }
+
+  // The slot IDs for the given hours of the day on every day from `from` to
+  // `to`, both inclusive, in chronological order
+  public static List<String> forHours(LocalDate from, LocalDate to, Collection<Integer> hours) {
+    var sortedHours = hours.stream().distinct().sorted().toList();
+    var slotIds = new ArrayList<String>();
+    for (var day = from; !day.isAfter(to); day = day.plusDays(1)) {
+      for (int hour : sortedHours) {
+        slotIds.add(of(day.atTime(hour, 0)));
+      }
+    }
+    return slotIds;
+  }
+
+  // The slot IDs of `hours` consecutive hours starting with `firstSlotId`.
+  // Throws a DateTimeParseException if the first slot ID isn't a valid hour
+  public static List<String> consecutive(String firstSlotId, int hours) {
+    var first = parse(firstSlotId);
+    var slotIds = new ArrayList<String>(hours);
+    for (int hour = 0; hour < hours; hour++) {
+      slotIds.add(of(first.plusHours(hour)));
+    }
+    return slotIds;
+  }
+}
@@ -1,39 +1,108 @@
 package io.example.domain;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.example.domain.Participant.ParticipantType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 // The Timeslot is a core domain object. It maintain two internal sets:
 // the list of bookings and the list of participants available for booking.
 // As bookings and availability are added and removed, the contents of those
 // sets are shifted from one to the other.
-public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
+//
+// Available participants are kept as a set of IDs per participant type, so
+// checking and changing availability doesn't allocate a Participant each
+// time. Bookings are also indexed by booking ID so that finding and canceling
+// a booking doesn't have to scan every booking in the slot. The index is
+// derived from the bookings set, so it is rebuilt whenever a timeslot is
+// created from its sets. See CompactTimeslotJson for how a timeslot is
+// serialized.
+//
+// The IDs of canceled bookings are remembered, so that a repeated cancel can
+// be recognized and answered as a success. Only the most recent
+// MAX_CANCELED_BOOKING_IDS are kept, in the order they were canceled, so the
+// state of a slot with a lot of churn doesn't keep growing. Retries come soon
+// after the original request, so forgetting the oldest ones is safe.
+@JsonSerialize(using = CompactTimeslotJson.Serializer.class)
+@JsonDeserialize(using = CompactTimeslotJson.Deserializer.class)
+public record Timeslot(
+    Set<Booking> bookings,
+    Map<ParticipantType, Set<String>> availableByType,
+    Map<String, List<Booking>> bookingsById,
+    Set<String> canceledBookingIds) {
+
+  public static final int MAX_CANCELED_BOOKING_IDS = 100;
+
+  public Timeslot(Set<Booking> bookings, Set<Participant> available) {
+    this(bookings, groupByType(available));
+  }
+
+  public Timeslot(Set<Booking> bookings, Map<ParticipantType, Set<String>> availableByType) {
+    this(bookings, availableByType, new LinkedHashSet<>());
+  }
+
+  public Timeslot(
+      Set<Booking> bookings,
+      Map<ParticipantType, Set<String>> availableByType,
+      Set<String> canceledBookingIds) {
+    this(bookings, availableByType, indexByBookingId(bookings), canceledBookingIds);
+  }
 
   public Timeslot reserve(BookingEvent.ParticipantMarkedAvailable reserved) {
-    available.add(new Participant(reserved.participantId(), reserved.participantType()));
+    availableByType.get(reserved.participantType()).add(reserved.participantId());
 
-    return new Timeslot(bookings, available);
+    return this;
   }
 
   public Timeslot unreserve(BookingEvent.ParticipantUnmarkedAvailable unreserved) {
-    available.remove(new Participant(unreserved.participantId(), unreserved.participantType()));
+    availableByType.get(unreserved.participantType()).remove(unreserved.participantId());
 
-    return new Timeslot(bookings, available);
+    return this;
   }
 
   public Timeslot book(BookingEvent.ParticipantBooked booked) {
-    Participant p = new Participant(booked.participantId(), booked.participantType());
-    available.remove(p);
-    bookings.add(new Booking(p, booked.bookingId()));
+    availableByType.get(booked.participantType()).remove(booked.participantId());
+    var booking =
+        new Booking(
+            new Participant(booked.participantId(), booked.participantType()), booked.bookingId());
+    bookings.add(booking);
+    bookingsById.computeIfAbsent(booked.bookingId(), id -> new ArrayList<>(3)).add(booking);
 
-    return new Timeslot(bookings, available);
+    return this;
+  }
+
+  // All available participants. This builds a new set, so it is meant for
+  // replies rather than for the command path.
+  public Set<Participant> available() {
+    var available = new HashSet<Participant>();
+    availableByType.forEach(
+        (type, ids) -> ids.forEach(id -> available.add(new Participant(id, type))));
+    return available;
   }
 
   // Checks to see if the given participant is among those marked as available
   public boolean isWaiting(String participantId, ParticipantType participantType) {
-    return available.contains(new Participant(participantId, participantType));
+    return availableByType.get(participantType).contains(participantId);
+  }
+
+  // Whether the participant is in one of the slot's bookings, i.e. already
+  // has a commitment at this hour
+  public boolean isBooked(String participantId, ParticipantType participantType) {
+    for (Booking booking : bookings) {
+      if (booking.participant().id().equals(participantId)
+          && booking.participant().participantType() == participantType) {
+        return true;
+      }
+    }
+    return false;
   }
 
   public boolean isBookable(String studentId, String aircraftId, String instructorId) {
@@ -46,15 +115,67 @@ public record Timeslot(Set<Booking> bookings, Set<Participant> available) {
   // be 3 participants for a single booking, so this will usually return no items
   // or 3 items.
   public List<Booking> findBooking(String bookingId) {
-    return bookings.stream().filter(b -> b.bookingId().equals(bookingId)).toList();
+    var booking = bookingsById.get(bookingId);
+    return booking == null ? List.of() : Collections.unmodifiableList(booking);
   }
 
-  // Removes all three participants of a booking from the booking list. It does
-  // not automatically mark them as available for that slot.
+  // Removes all three participants of a booking from the booking list and
+  // marks them as available for that slot again, as they were before the
+  // booking.
   public Timeslot cancelBooking(String bookingId) {
-    Set<Booking> books =
-        bookings.stream().filter(b -> !b.bookingId().equals(bookingId)).collect(Collectors.toSet());
-    return new Timeslot(books, available);
+    var booking = bookingsById.remove(bookingId);
+    if (booking != null) {
+      for (Booking b : booking) {
+        bookings.remove(b);
+        availableByType.get(b.participant().participantType()).add(b.participant().id());
+      }
+      canceledBookingIds.add(bookingId);
+      if (canceledBookingIds.size() > MAX_CANCELED_BOOKING_IDS) {
+        // the oldest, as the set keeps insertion order
+        var oldest = canceledBookingIds.iterator();
+        oldest.next();
+        oldest.remove();
+      }
+    }
+    return this;
+  }
+
+  // Whether the booking exists with exactly these participants, i.e. booking
+  // them again under the same ID is a repeat of the same request
+  public boolean isBookedAs(
+      String bookingId, String studentId, String aircraftId, String instructorId) {
+    var booking = bookingsById.get(bookingId);
+    return booking != null
+        && booking.size() == 3
+        && booking.contains(
+            new Booking(new Participant(studentId, ParticipantType.STUDENT), bookingId))
+        && booking.contains(
+            new Booking(new Participant(aircraftId, ParticipantType.AIRCRAFT), bookingId))
+        && booking.contains(
+            new Booking(new Participant(instructorId, ParticipantType.INSTRUCTOR), bookingId));
+  }
+
+  public boolean wasCanceled(String bookingId) {
+    return canceledBookingIds.contains(bookingId);
+  }
+
+  private static Map<ParticipantType, Set<String>> groupByType(Set<Participant> available) {
+    var byType = new EnumMap<ParticipantType, Set<String>>(ParticipantType.class);
+    for (ParticipantType type : ParticipantType.values()) {
+      byType.put(type, new HashSet<>());
+    }
+    for (Participant participant : available) {
+      byType.get(participant.participantType()).add(participant.id());
+    }
+    return byType;
+  }
+
+  private static Map<String, List<Booking>> indexByBookingId(Set<Booking> bookings) {
+    var index = HashMap.<String, List<Booking>>newHashMap(bookings.size() / 3);
+    for (Booking booking : bookings) {
+      index.computeIfAbsent(booking.bookingId(), id -> new ArrayList<>(3)).add(booking);
+    }
+    return index;
   }
 
   public record Booking(Participant participant, String bookingId) {}
@@ -0,0 +1,54 @@
+package io.example.domain;
+
+import java.util.Optional;
+
+// The weather limits a forecast must be within for a VFR flying lesson.
+public record VfrMinimums(
+    double minVisibilityMiles, int minCeilingFeet, int maxWindKnots, int maxGustKnots) {
+
+  // Limiting factors, besides the forecast's hazards
+  public static final String ICING = "icing";
+  public static final String VISIBILITY = "visibility";
+  public static final String CEILING = "ceiling";
+  public static final String WIND = "wind";
+  public static final String GUST = "gust";
+
+  // Whether a forecast meets the limits and, if it doesn't, the first thing
+  // that rules it out: icing, a hazard or one of the limits
+  public record Verdict(boolean meetsRequirements, String limitingFactor) {}
+
+  // Returns the verdict on the forecast, or nothing if the forecast doesn't
+  // say enough to decide either way. Any single attribute outside the limits
+  // is enough to fail a forecast, but passing one requires at least a known
+  // visibility and either a known ceiling or clear skies.
+  public Optional<Verdict> evaluate(WeatherForecast forecast) {
+    if (forecast.icing()) {
+      return fails(ICING);
+    }
+    if (!forecast.hazards().isEmpty()) {
+      return fails(forecast.hazards().getFirst());
+    }
+    if (forecast.visibilityMiles() != null && forecast.visibilityMiles() < minVisibilityMiles) {
+      return fails(VISIBILITY);
+    }
+    if (forecast.ceilingFeet() != null && forecast.ceilingFeet() < minCeilingFeet) {
+      return fails(CEILING);
+    }
+    if (forecast.windKnots() != null && forecast.windKnots() > maxWindKnots) {
+      return fails(WIND);
+    }
+    if (forecast.gustKnots() != null && forecast.gustKnots() > maxGustKnots) {
+      return fails(GUST);
+    }
+
+    if (forecast.visibilityMiles() == null
+        || (forecast.ceilingFeet() == null && !forecast.clearSkies())) {
+      return Optional.empty();
+    }
+    return Optional.of(new Verdict(true, null));
+  }
+
+  private static Optional<Verdict> fails(String limitingFactor) {
+    return Optional.of(new Verdict(false, limitingFactor));
+  }
+}
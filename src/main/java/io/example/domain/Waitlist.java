@@ -0,0 +1,68 @@
+package io.example.domain;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// The booking requests waiting for a slot, in the order they joined. Each
+// entry is a complete booking (student, aircraft, instructor and booking ID)
+// that is made as soon as its participants are all available in the slot.
+// Once the slot has started nobody can be booked into it, and the waitlist is
+// dropped.
+public record Waitlist(String slotId, List<Entry> entries) {
+
+  public record Entry(
+      String bookingId,
+      String studentId,
+      String aircraftId,
+      String instructorId,
+      Instant joinedAt) {}
+
+  public static Waitlist empty(String slotId) {
+    return new Waitlist(slotId, List.of());
+  }
+
+  // Whether the slot has started at the given local time
+  public boolean isPast(LocalDateTime now) {
+    return SlotId.hasStarted(slotId, now);
+  }
+
+  public boolean contains(String bookingId) {
+    return entries.stream().anyMatch(entry -> entry.bookingId().equals(bookingId));
+  }
+
+  public Waitlist join(Entry entry) {
+    var entries = new ArrayList<>(this.entries);
+    entries.add(entry);
+    return new Waitlist(slotId, entries);
+  }
+
+  public Waitlist leave(String bookingId) {
+    var entries = new ArrayList<>(this.entries);
+    entries.removeIf(entry -> entry.bookingId().equals(bookingId));
+    return new Waitlist(slotId, entries);
+  }
+
+  // The first entry whose participants are all available in the timeslot
+  public Optional<Entry> firstBookable(Timeslot timeslot) {
+    return entries.stream()
+        .filter(entry -> !isSettled(entry, timeslot))
+        .filter(
+            entry ->
+                timeslot.isBookable(entry.studentId(), entry.aircraftId(), entry.instructorId()))
+        .findFirst();
+  }
+
+  // Entries whose booking ID has already been used in the timeslot, i.e. that
+  // were promoted already or can't be booked under their ID any more
+  public List<Entry> settled(Timeslot timeslot) {
+    return entries.stream().filter(entry -> isSettled(entry, timeslot)).toList();
+  }
+
+  private static boolean isSettled(Entry entry, Timeslot timeslot) {
+    return !timeslot.findBooking(entry.bookingId()).isEmpty()
+        || timeslot.wasCanceled(entry.bookingId());
+  }
+}
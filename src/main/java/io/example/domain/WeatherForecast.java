@@ -0,0 +1,29 @@
+package io.example.domain;
+
+import java.util.List;
+
+// The forecast for a slot, in the terms that matter for a VFR flying lesson.
+// Attributes the forecast doesn't give are null. A null ceiling together with
+// clearSkies means there is no cloud base to worry about, while a null ceiling
+// on its own means the ceiling is unknown. Precipitation is e.g. "heavy rain"
+// or "freezing rain", null for none. Hazards are conditions that rule out a
+// lesson on their own, e.g. "thunderstorm" or "wind shear".
+public record WeatherForecast(
+    Double visibilityMiles,
+    Integer ceilingFeet,
+    Integer windKnots,
+    Integer gustKnots,
+    String precipitation,
+    boolean clearSkies,
+    boolean icing,
+    List<String> hazards) {
+
+  public WeatherForecast {
+    hazards = hazards == null ? List.of() : List.copyOf(hazards);
+  }
+
+  // A forecast that says nothing, for slots without one
+  public static WeatherForecast unknown() {
+    return new WeatherForecast(null, null, null, null, null, false, false, List.of());
+  }
+}
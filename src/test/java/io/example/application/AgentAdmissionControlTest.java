@@ -0,0 +1,132 @@
+package io.example.application;
+
+import akka.javasdk.agent.RateLimitException;
+import io.example.application.AgentAdmissionControl.AgentUnavailableException;
+import io.example.application.AgentAdmissionControl.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AgentAdmissionControlTest {
+
+    @Test
+    public void queuesBeyondMaxConcurrentAndShedsBeyondMaxQueued() {
+        var control = new AgentAdmissionControl(settings(1, 1, 3, Duration.ofMinutes(1)));
+        var running = new CompletableFuture<String>();
+
+        var first = control.call(() -> running);
+        var second = control.call(() -> CompletableFuture.completedFuture("second"));
+        var third = control.call(() -> CompletableFuture.completedFuture("third"));
+
+        assertEquals(1, control.metrics().inFlight());
+        assertEquals(1, control.metrics().queued());
+        assertFalse(second.toCompletableFuture().isDone());
+        assertUnavailable(third);
+
+        running.complete("first");
+
+        assertEquals("first", first.toCompletableFuture().join());
+        assertEquals("second", second.toCompletableFuture().join());
+        assertEquals(0, control.metrics().inFlight());
+        assertEquals(1, control.metrics().shed());
+    }
+
+    @Test
+    public void opensAfterConsecutiveRateLimits() {
+        var control = new AgentAdmissionControl(settings(4, 0, 2, Duration.ofMinutes(1)));
+
+        assertFailsWith(control.call(AgentAdmissionControlTest::rateLimited), RateLimitException.class);
+        assertEquals(State.CLOSED, control.metrics().state());
+        assertFailsWith(control.call(AgentAdmissionControlTest::rateLimited), RateLimitException.class);
+        assertEquals(State.OPEN, control.metrics().state());
+
+        assertUnavailable(control.call(() -> CompletableFuture.completedFuture("ok")));
+        assertEquals(2, control.metrics().rateLimited());
+    }
+
+    @Test
+    public void aSuccessInBetweenResetsTheCount() {
+        var control = new AgentAdmissionControl(settings(4, 0, 2, Duration.ofMinutes(1)));
+
+        control.call(AgentAdmissionControlTest::rateLimited);
+        control.call(() -> CompletableFuture.completedFuture("ok"));
+        control.call(AgentAdmissionControlTest::rateLimited);
+
+        assertEquals(State.CLOSED, control.metrics().state());
+    }
+
+    @Test
+    public void aSuccessfulTrialCallClosesTheBreaker() {
+        var control = new AgentAdmissionControl(settings(4, 0, 1, Duration.ZERO));
+        control.call(AgentAdmissionControlTest::rateLimited);
+        assertEquals(State.OPEN, control.metrics().state());
+
+        var trial = new CompletableFuture<String>();
+        var result = control.call(() -> trial);
+
+        assertEquals(State.HALF_OPEN, control.metrics().state());
+        // only one trial call at a time
+        assertUnavailable(control.call(() -> CompletableFuture.completedFuture("other")));
+
+        trial.complete("ok");
+
+        assertEquals("ok", result.toCompletableFuture().join());
+        assertEquals(State.CLOSED, control.metrics().state());
+    }
+
+    @Test
+    public void aRateLimitedTrialCallOpensTheBreakerAgain() {
+        var control = new AgentAdmissionControl(settings(4, 0, 1, Duration.ZERO));
+        control.call(AgentAdmissionControlTest::rateLimited);
+
+        var trial = new CompletableFuture<String>();
+        control.call(() -> trial);
+        assertEquals(State.HALF_OPEN, control.metrics().state());
+
+        trial.completeExceptionally(new RateLimitException("slow down"));
+
+        assertEquals(State.OPEN, control.metrics().state());
+    }
+
+    @Test
+    public void queuedCallsAreShedWhenTheBreakerOpens() {
+        var control = new AgentAdmissionControl(settings(1, 2, 1, Duration.ofMinutes(1)));
+        var running = new CompletableFuture<String>();
+
+        control.call(() -> running);
+        var queued = control.call(() -> CompletableFuture.completedFuture("queued"));
+
+        running.completeExceptionally(new RateLimitException("slow down"));
+
+        assertEquals(State.OPEN, control.metrics().state());
+        assertEquals(0, control.metrics().queued());
+        assertUnavailable(queued);
+    }
+
+    private static AgentAdmissionControl.Settings settings(
+            int maxConcurrent, int maxQueued, int failureThreshold, Duration openDuration) {
+        return new AgentAdmissionControl.Settings(
+                maxConcurrent, maxQueued, failureThreshold, openDuration, 1, Duration.ofSeconds(5));
+    }
+
+    private static CompletionStage<String> rateLimited() {
+        return CompletableFuture.failedFuture(new RateLimitException("slow down"));
+    }
+
+    private static void assertUnavailable(CompletionStage<?> result) {
+        assertFailsWith(result, AgentUnavailableException.class);
+    }
+
+    private static void assertFailsWith(CompletionStage<?> result, Class<? extends Throwable> cause) {
+        var failure = assertThrows(CompletionException.class, () -> result.toCompletableFuture().join());
+        assertInstanceOf(cause, failure.getCause());
+    }
+}
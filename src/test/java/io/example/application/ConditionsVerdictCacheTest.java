@@ -0,0 +1,117 @@
+package io.example.application;
+
+import io.example.application.FlightConditionsAgent.ConditionsReport;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConditionsVerdictCacheTest {
+
+    private static final String SLOT_ID = "2025-08-08-09";
+    private static final ConditionsReport PASSED = new ConditionsReport(SLOT_ID, true, null);
+
+    @Test
+    public void lookupsForASlotInFlightJoinTheSameCall() {
+        var cache = new ConditionsVerdictCache(Duration.ofMinutes(10), 100);
+        var pending = new CompletableFuture<ConditionsReport>();
+        var loads = new AtomicInteger();
+        Function<String, CompletionStage<ConditionsReport>> loader = slotId -> {
+            loads.incrementAndGet();
+            return pending;
+        };
+
+        var first = cache.get(SLOT_ID, loader).toCompletableFuture();
+        var second = cache.get(SLOT_ID, loader).toCompletableFuture();
+
+        assertEquals(1, loads.get());
+        assertFalse(first.isDone());
+
+        pending.complete(PASSED);
+
+        assertEquals(PASSED, first.join());
+        assertEquals(PASSED, second.join());
+    }
+
+    @Test
+    public void verdictsAreReusedUntilTheyExpire() throws Exception {
+        var cache = new ConditionsVerdictCache(Duration.ofMillis(10), 100);
+        var loads = new AtomicInteger();
+        Function<String, CompletionStage<ConditionsReport>> loader = slotId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(PASSED);
+        };
+
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+        assertEquals(1, loads.get());
+
+        Thread.sleep(20);
+
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void failedLookupsAreNotCached() {
+        var cache = new ConditionsVerdictCache(Duration.ofMinutes(10), 100);
+        var loads = new AtomicInteger();
+
+        var failed = cache.get(SLOT_ID, slotId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("model down"));
+        });
+        var thrown = cache.get(SLOT_ID, slotId -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("model down");
+        });
+        var passed = cache.get(SLOT_ID, slotId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(PASSED);
+        });
+
+        assertTrue(failed.toCompletableFuture().isCompletedExceptionally());
+        assertTrue(thrown.toCompletableFuture().isCompletedExceptionally());
+        assertEquals(PASSED, passed.toCompletableFuture().join());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void invalidatedVerdictsAreLoadedAgain() {
+        var cache = new ConditionsVerdictCache(Duration.ofMinutes(10), 100);
+        var loads = new AtomicInteger();
+        Function<String, CompletionStage<ConditionsReport>> loader = slotId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(PASSED);
+        };
+
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+        cache.invalidate(SLOT_ID);
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedSlotOnceFull() {
+        var cache = new ConditionsVerdictCache(Duration.ofMinutes(10), 1);
+        var loads = new AtomicInteger();
+        Function<String, CompletionStage<ConditionsReport>> loader = slotId -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(new ConditionsReport(slotId, true, null));
+        };
+
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+        cache.get("2025-08-08-10", loader).toCompletableFuture().join();
+        cache.get(SLOT_ID, loader).toCompletableFuture().join();
+
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,35 @@
+package io.example.application;
+
+import io.example.domain.WeatherForecast;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileForecastProviderTest {
+
+    private final WeatherForecast august = new WeatherForecast(10.0, 5000, 5, 10, null, false, false, List.of());
+    private final WeatherForecast storm =
+            new WeatherForecast(2.0, 800, 35, 50, null, false, false, List.of("thunderstorm"));
+
+    private final FileForecastProvider provider = new FileForecastProvider(
+            new FileForecastProvider.Forecasts(Map.of(8, august), Map.of("2025-08-08-09", storm)));
+
+    @Test
+    public void slotsGetTheForecastOfTheirMonthUnlessTheyHaveTheirOwn() {
+        assertEquals(august, provider.forecast("2025-08-08-10"));
+        assertEquals(storm, provider.forecast("2025-08-08-09"));
+    }
+
+    @Test
+    public void slotsWithoutAForecastGetAnUnknownOne() {
+        assertEquals(WeatherForecast.unknown(), provider.forecast("2025-09-01-10"));
+    }
+
+    @Test
+    public void slotsWhoseIdIsNotAnHourGetAnUnknownForecast() {
+        assertEquals(WeatherForecast.unknown(), provider.forecast("bestslot"));
+    }
+}
@@ -0,0 +1,17 @@
+package io.example.application;
+
+import akka.Done;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WaitlistConsumerTest {
+
+    @Test
+    public void skipsSlotsWhoseIdIsNotAnHour() {
+        // nothing may be called for such a slot, so no clients are needed
+        var consumer = new WaitlistConsumer(null, null);
+
+        assertEquals(Done.getInstance(), consumer.promote("bestslot").toCompletableFuture().join());
+    }
+}
@@ -0,0 +1,134 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class AvailabilityIndexTest {
+
+  // The last hour of a word, so the next hour is in the next word
+  private final long lastOfWord = HourBitset.hourOf("2025-08-01-00") | 63;
+
+  @Test
+  public void findsCommonHoursAcrossWordBoundaries() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", -1, 0, 1, 2, 70, 200);
+    markAvailable(index, "superplane", 0, 1, 70, 200);
+    markAvailable(index, "superteacher", -1, 0, 1, 70, 200);
+
+    assertEquals(
+        slotIds(0, 1, 70, 200),
+        index.firstCommonFreeHours(
+            List.of("alice", "superplane", "superteacher"), slotId(-100), slotId(300), 10));
+  }
+
+  @Test
+  public void staysWithinTheRangeInsideTheFirstAndLastWords() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", -2, -1, 0, 1, 64, 65, 66);
+
+    assertEquals(
+        slotIds(-1, 0, 1, 64, 65),
+        index.firstCommonFreeHours(List.of("alice"), slotId(-1), slotId(65), 10));
+  }
+
+  @Test
+  public void stopsAtTheCount() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", 0, 1, 2, 3);
+
+    assertEquals(
+        slotIds(0, 1),
+        index.firstCommonFreeHours(List.of("alice"), slotId(-10), slotId(10), 2));
+  }
+
+  @Test
+  public void bookedHoursAreNotFreeUntilCanceled() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", 0, 1);
+    index.book("alice", slotId(0));
+
+    assertTrue(index.isBooked("alice", slotId(0)));
+    assertEquals(
+        slotIds(1), index.firstCommonFreeHours(List.of("alice"), slotId(0), slotId(1), 5));
+
+    index.cancel("alice", slotId(0));
+
+    assertFalse(index.isBooked("alice", slotId(0)));
+    assertEquals(
+        slotIds(0, 1), index.firstCommonFreeHours(List.of("alice"), slotId(0), slotId(1), 5));
+  }
+
+  @Test
+  public void aBookedHourCannotBeMarkedAvailable() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", 0);
+    index.book("alice", slotId(0));
+    index.markAvailable("alice", slotId(0));
+
+    assertFalse(index.isFree("alice", slotId(0)));
+  }
+
+  @Test
+  public void noCommonHoursWithAnUnknownParticipant() {
+    var index = new AvailabilityIndex();
+    markAvailable(index, "alice", 0, 1);
+
+    assertTrue(
+        index.firstCommonFreeHours(List.of("alice", "bob"), slotId(0), slotId(1), 5).isEmpty());
+  }
+
+  @Test
+  public void followsBookingEvents() {
+    var index = new AvailabilityIndex();
+    var slotId = slotId(0);
+    index.apply(
+        new BookingEvent.ParticipantMarkedAvailable(slotId, "alice", ParticipantType.STUDENT));
+    index.apply(
+        new BookingEvent.ParticipantBooked(slotId, "alice", ParticipantType.STUDENT, "booking-1"));
+
+    assertTrue(index.isBooked("alice", slotId));
+
+    index.apply(
+        new BookingEvent.ParticipantCanceled(
+            slotId, "alice", ParticipantType.STUDENT, "booking-1"));
+
+    assertTrue(index.isFree("alice", slotId));
+  }
+
+  @Test
+  public void isBuiltFromCalendarSlots() {
+    var index = new AvailabilityIndex();
+    index.add(
+        "alice",
+        List.of(
+            new ParticipantCalendar.CalendarSlot(slotId(0), ParticipantCalendar.AVAILABLE, null),
+            new ParticipantCalendar.CalendarSlot(
+                slotId(1), ParticipantCalendar.BOOKED, "booking-1")));
+
+    assertTrue(index.isFree("alice", slotId(0)));
+    assertTrue(index.isBooked("alice", slotId(1)));
+    assertEquals(1, index.participantCount());
+  }
+
+  private void markAvailable(AvailabilityIndex index, String participantId, int... offsets) {
+    for (int offset : offsets) {
+      index.markAvailable(participantId, slotId(offset));
+    }
+  }
+
+  // Offsets count from the last hour of a word, so 0 and 1 are in different
+  // words
+  private String slotId(int offset) {
+    return HourBitset.slotIdOf(lastOfWord + offset);
+  }
+
+  private List<String> slotIds(int... offsets) {
+    return Arrays.stream(offsets).mapToObj(this::slotId).toList();
+  }
+}
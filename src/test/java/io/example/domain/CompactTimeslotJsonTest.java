@@ -0,0 +1,81 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.example.domain.Participant.ParticipantType;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class CompactTimeslotJsonTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void roundTripsAvailabilityBookingsAndCanceledIds() throws Exception {
+    var timeslot = TimeslotTest.available("alice", "superplane", "superteacher");
+    timeslot = TimeslotTest.book(timeslot, "booking-1").cancelBooking("booking-1");
+    timeslot = TimeslotTest.book(timeslot, "booking-2");
+    timeslot =
+        timeslot.reserve(
+            new BookingEvent.ParticipantMarkedAvailable(
+                "2025-08-08-09", "bob", ParticipantType.STUDENT));
+
+    var read = mapper.readValue(mapper.writeValueAsString(timeslot), Timeslot.class);
+
+    assertEquals(timeslot.bookings(), read.bookings());
+    assertEquals(timeslot.available(), read.available());
+    // a booking's participants come back in no particular order
+    assertEquals(
+        Set.copyOf(timeslot.findBooking("booking-2")), Set.copyOf(read.findBooking("booking-2")));
+    assertEquals(List.of("booking-1"), List.copyOf(read.canceledBookingIds()));
+    assertTrue(read.isBookedAs("booking-2", "alice", "superplane", "superteacher"));
+    assertTrue(read.isWaiting("bob", ParticipantType.STUDENT));
+  }
+
+  @Test
+  public void keepsTheOrderOfCanceledIds() throws Exception {
+    var timeslot = TimeslotTest.available("alice", "superplane", "superteacher");
+    for (var bookingId : List.of("c", "a", "b")) {
+      timeslot = TimeslotTest.book(timeslot, bookingId).cancelBooking(bookingId);
+    }
+
+    var read = mapper.readValue(mapper.writeValueAsString(timeslot), Timeslot.class);
+
+    assertEquals(List.of("c", "a", "b"), List.copyOf(read.canceledBookingIds()));
+  }
+
+  @Test
+  public void readsTheRecordLayout() throws Exception {
+    var json =
+        """
+        {"bookings": [
+           {"participant": {"id": "alice", "participantType": "STUDENT"}, "bookingId": "booking-1"},
+           {"participant": {"id": "superplane", "participantType": "AIRCRAFT"},
+            "bookingId": "booking-1"},
+           {"participant": {"id": "superteacher", "participantType": "INSTRUCTOR"},
+            "bookingId": "booking-1"}],
+         "available": [{"id": "bob", "participantType": "STUDENT"}]}
+        """;
+
+    var read = mapper.readValue(json, Timeslot.class);
+
+    assertEquals(3, read.findBooking("booking-1").size());
+    assertTrue(read.isBooked("superteacher", ParticipantType.INSTRUCTOR));
+    assertEquals(Set.of(new Participant("bob", ParticipantType.STUDENT)), read.available());
+    // timeslots stored before canceled IDs were kept have none
+    assertTrue(read.canceledBookingIds().isEmpty());
+  }
+
+  @Test
+  public void anEmptyTimeslotRoundTrips() throws Exception {
+    var timeslot = new Timeslot(Set.of(), Set.of());
+
+    var read = mapper.readValue(mapper.writeValueAsString(timeslot), Timeslot.class);
+
+    assertTrue(read.bookings().isEmpty());
+    assertTrue(read.available().isEmpty());
+  }
+}
@@ -0,0 +1,89 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class HourBitsetTest {
+
+  // The last hour of a word, so the next hour is in the next word
+  private final long lastOfWord = HourBitset.hourOf("2025-08-01-00") | 63;
+
+  @Test
+  public void consecutiveSlotsAreConsecutiveHours() {
+    var hour = HourBitset.hourOf("2025-12-31-23");
+
+    assertEquals(hour + 1, HourBitset.hourOf("2026-01-01-00"));
+    assertEquals("2025-12-31-23", HourBitset.slotIdOf(hour));
+  }
+
+  @Test
+  public void setsAndClearsHoursOnBothSidesOfAWordBoundary() {
+    var bits = new HourBitset();
+    bits.set(lastOfWord);
+    bits.set(lastOfWord + 1);
+
+    assertTrue(bits.get(lastOfWord));
+    assertTrue(bits.get(lastOfWord + 1));
+    assertFalse(bits.get(lastOfWord - 1));
+    assertFalse(bits.get(lastOfWord + 2));
+    assertEquals(1L << 63, bits.word(lastOfWord >> 6));
+    assertEquals(1L, bits.word((lastOfWord + 1) >> 6));
+    assertEquals(2, bits.cardinality());
+
+    bits.clear(lastOfWord);
+
+    assertFalse(bits.get(lastOfWord));
+    assertTrue(bits.get(lastOfWord + 1));
+    assertEquals(1, bits.cardinality());
+  }
+
+  @Test
+  public void growsTowardsEarlierHours() {
+    var bits = new HourBitset();
+    bits.set(lastOfWord + 200);
+    bits.set(lastOfWord - 200);
+
+    assertTrue(bits.get(lastOfWord + 200));
+    assertTrue(bits.get(lastOfWord - 200));
+    assertEquals(2, bits.cardinality());
+  }
+
+  @Test
+  public void hoursOutsideTheWordsHeldAreClear() {
+    var bits = new HourBitset();
+
+    assertFalse(bits.get(lastOfWord));
+    assertEquals(0L, bits.word(lastOfWord >> 6));
+
+    bits.clear(lastOfWord);
+    assertEquals(0, bits.cardinality());
+  }
+
+  @Test
+  public void wordOperationsOnPlainArrays() {
+    var words = HourBitset.withBit(new long[0], 64, true);
+
+    assertArrayEquals(new long[] {0L, 1L}, words);
+    assertTrue(HourBitset.isSet(words, 64));
+    assertFalse(HourBitset.isSet(words, 63));
+    assertFalse(HourBitset.isSet(words, 700));
+    assertEquals(0L, HourBitset.wordAt(words, 5));
+  }
+
+  @Test
+  public void withBitCopiesAndDropsTrailingZeroWords() {
+    var words = HourBitset.withBit(HourBitset.withBit(new long[0], 3, true), 130, true);
+    var cleared = HourBitset.withBit(words, 130, false);
+
+    assertArrayEquals(new long[] {8L}, cleared);
+    // the original is left as it was
+    assertTrue(HourBitset.isSet(words, 130));
+    // nothing to change, nothing copied
+    assertSame(cleared, HourBitset.withBit(cleared, 3, true));
+  }
+}
@@ -0,0 +1,119 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.example.domain.Participant.ParticipantType;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ParticipantCalendarTest {
+
+  private final ParticipantCalendar empty =
+      ParticipantCalendar.empty("alice", ParticipantType.STUDENT, "2025-08");
+
+  @Test
+  public void anHourIsAvailableBookedOrNeither() {
+    var calendar = empty.markAvailable("2025-08-08-09").markAvailable("2025-08-08-10");
+    calendar = calendar.book("2025-08-08-09", "booking-1");
+
+    assertFalse(calendar.isAvailable("2025-08-08-09"));
+    assertTrue(calendar.isBooked("2025-08-08-09"));
+    assertTrue(calendar.isAvailable("2025-08-08-10"));
+    assertFalse(calendar.isBooked("2025-08-08-10"));
+    assertFalse(calendar.isAvailable("2025-08-08-11"));
+    assertFalse(calendar.isBooked("2025-08-08-11"));
+  }
+
+  @Test
+  public void cancelingMakesTheHourAvailableAgain() {
+    var calendar = empty.markAvailable("2025-08-08-09").book("2025-08-08-09", "booking-1");
+
+    calendar = calendar.cancel("2025-08-08-09");
+
+    assertTrue(calendar.isAvailable("2025-08-08-09"));
+    assertFalse(calendar.isBooked("2025-08-08-09"));
+    assertTrue(calendar.bookingIds().isEmpty());
+  }
+
+  @Test
+  public void changesThatDoNotApplyLeaveTheCalendarAsItIs() {
+    var booked = empty.markAvailable("2025-08-08-09").book("2025-08-08-09", "booking-1");
+
+    // only available hours can be booked, only booked ones canceled
+    assertSame(empty, empty.book("2025-08-08-09", "booking-2"));
+    assertSame(empty, empty.cancel("2025-08-08-09"));
+    assertSame(empty, empty.unmarkAvailable("2025-08-08-09"));
+    // a booked hour can only be canceled
+    assertSame(booked, booked.markAvailable("2025-08-08-09"));
+    assertSame(booked, booked.unmarkAvailable("2025-08-08-09"));
+  }
+
+  @Test
+  public void listsTheSlotsInOrderAcrossTheWholeMonth() {
+    var calendar =
+        empty
+            .markAvailable("2025-08-31-23")
+            .markAvailable("2025-08-01-00")
+            .markAvailable("2025-08-03-17")
+            .book("2025-08-03-17", "booking-1");
+
+    assertEquals(
+        List.of(
+            new ParticipantCalendar.CalendarSlot(
+                "2025-08-01-00", ParticipantCalendar.AVAILABLE, null),
+            new ParticipantCalendar.CalendarSlot(
+                "2025-08-03-17", ParticipantCalendar.BOOKED, "booking-1"),
+            new ParticipantCalendar.CalendarSlot(
+                "2025-08-31-23", ParticipantCalendar.AVAILABLE, null)),
+        calendar.slots());
+    assertTrue(empty.slots().isEmpty());
+  }
+
+  @Test
+  public void calendarsWithTheSameHoursAreEqual() {
+    var marked = empty.markAvailable("2025-08-20-09");
+    var markedAndUnmarked =
+        empty
+            .markAvailable("2025-08-01-00")
+            .markAvailable("2025-08-20-09")
+            .unmarkAvailable("2025-08-01-00");
+    var again = empty.markAvailable("2025-08-20-09");
+
+    assertEquals(marked, again);
+    assertEquals(marked.hashCode(), again.hashCode());
+    assertEquals(marked, markedAndUnmarked);
+    assertNotEquals(marked, empty);
+    assertEquals(empty, marked.unmarkAvailable("2025-08-20-09"));
+  }
+
+  @Test
+  public void showsTheBitsRatherThanTheArrays() {
+    var calendar = empty.markAvailable("2025-08-01-05");
+
+    assertTrue(calendar.toString().contains("available=[32], booked=[]"));
+  }
+
+  @Test
+  public void rejectsSlotsOfOtherMonths() {
+    assertThrows(IllegalArgumentException.class, () -> empty.markAvailable("2025-09-01-00"));
+    assertThrows(IllegalArgumentException.class, () -> empty.isAvailable("2024-08-01-00"));
+  }
+
+  @Test
+  public void calendarIdsArePerParticipantAndMonth() {
+    assertEquals("alice-2025-08", ParticipantCalendar.calendarId("alice", "2025-08-31-23"));
+    assertEquals("2025-08", ParticipantCalendar.monthOf("2025-08-31-23"));
+  }
+
+  @Test
+  public void slotsThatAreNotHoursHaveNoCalendar() {
+    assertThrows(
+        DateTimeParseException.class, () -> ParticipantCalendar.calendarId("alice", "bestslot"));
+  }
+}
@@ -0,0 +1,68 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SlotIdTest {
+
+  @Test
+  public void formatsAndParsesTheHour() {
+    var hour = LocalDateTime.of(2025, 8, 8, 9, 0);
+
+    assertEquals("2025-08-08-09", SlotId.of(hour));
+    assertEquals(hour, SlotId.parse("2025-08-08-09"));
+  }
+
+  @Test
+  public void rejectsInvalidHours() {
+    assertThrows(DateTimeParseException.class, () -> SlotId.parse("2025-02-30-10"));
+    assertThrows(DateTimeParseException.class, () -> SlotId.parse("2025-08-08-24"));
+    assertThrows(DateTimeParseException.class, () -> SlotId.parse("2025-8-8-9"));
+  }
+
+  @Test
+  public void onlyHoursAreValidSlotIds() {
+    assertTrue(SlotId.isValid("2025-08-08-09"));
+    assertFalse(SlotId.isValid("bestslot"));
+    assertFalse(SlotId.isValid("2025-02-30-10"));
+  }
+
+  @Test
+  public void sortsChronologicallyAsStrings() {
+    assertTrue(SlotId.of(LocalDateTime.of(2025, 8, 8, 9, 0)).compareTo("2025-08-08-10") < 0);
+    assertTrue(SlotId.of(LocalDateTime.of(2025, 9, 1, 0, 0)).compareTo("2025-08-31-23") > 0);
+  }
+
+  @Test
+  public void givesTheHoursOfEveryDayInOrder() {
+    var slotIds =
+        SlotId.forHours(LocalDate.of(2025, 8, 31), LocalDate.of(2025, 9, 1), List.of(14, 9, 14));
+
+    assertEquals(
+        List.of("2025-08-31-09", "2025-08-31-14", "2025-09-01-09", "2025-09-01-14"), slotIds);
+  }
+
+  @Test
+  public void givesConsecutiveHoursAcrossMidnight() {
+    assertEquals(
+        List.of("2025-12-31-22", "2025-12-31-23", "2026-01-01-00"),
+        SlotId.consecutive("2025-12-31-22", 3));
+  }
+
+  @Test
+  public void aSlotHasStartedFromItsHourOn() {
+    var slotId = "2025-08-08-09";
+
+    assertFalse(SlotId.hasStarted(slotId, LocalDateTime.of(2025, 8, 8, 8, 59)));
+    assertTrue(SlotId.hasStarted(slotId, LocalDateTime.of(2025, 8, 8, 9, 0)));
+    assertTrue(SlotId.hasStarted(slotId, LocalDateTime.of(2025, 8, 8, 10, 30)));
+  }
+}
@@ -0,0 +1,153 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.example.domain.Participant.ParticipantType;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class TimeslotTest {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+
+  @Test
+  public void bookingTakesTheParticipantsOutOfAvailable() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    assertFalse(timeslot.isWaiting("alice", ParticipantType.STUDENT));
+    assertFalse(timeslot.isWaiting("superplane", ParticipantType.AIRCRAFT));
+    assertFalse(timeslot.isWaiting("superteacher", ParticipantType.INSTRUCTOR));
+    assertTrue(timeslot.isBooked("alice", ParticipantType.STUDENT));
+    assertEquals(3, timeslot.findBooking("booking-1").size());
+    assertEquals(3, timeslot.bookings().size());
+    assertFalse(timeslot.isBookable("alice", "superplane", "superteacher"));
+  }
+
+  @Test
+  public void onlyAvailableTriosAreBookable() {
+    var timeslot = available("alice", "superplane", "superteacher");
+
+    assertTrue(timeslot.isBookable("alice", "superplane", "superteacher"));
+    assertFalse(timeslot.isBookable("bob", "superplane", "superteacher"));
+    // the right IDs under the wrong types
+    assertFalse(timeslot.isBookable("superplane", "alice", "superteacher"));
+  }
+
+  @Test
+  public void cancelingRemovesTheBookingsOfAllThreeParticipants() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    timeslot = timeslot.cancelBooking("booking-1");
+
+    assertTrue(timeslot.findBooking("booking-1").isEmpty());
+    assertTrue(timeslot.bookings().isEmpty());
+    assertFalse(timeslot.isBooked("alice", ParticipantType.STUDENT));
+    assertFalse(timeslot.isBooked("superplane", ParticipantType.AIRCRAFT));
+    assertFalse(timeslot.isBooked("superteacher", ParticipantType.INSTRUCTOR));
+  }
+
+  @Test
+  public void cancelingMakesTheParticipantsAvailableAgain() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    timeslot = timeslot.cancelBooking("booking-1");
+
+    assertTrue(timeslot.isWaiting("alice", ParticipantType.STUDENT));
+    assertTrue(timeslot.isWaiting("superplane", ParticipantType.AIRCRAFT));
+    assertTrue(timeslot.isWaiting("superteacher", ParticipantType.INSTRUCTOR));
+    assertTrue(timeslot.isBookable("alice", "superplane", "superteacher"));
+  }
+
+  @Test
+  public void cancelingAnUnknownBookingChangesNothing() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    timeslot = timeslot.cancelBooking("booking-2");
+
+    assertEquals(3, timeslot.findBooking("booking-1").size());
+    assertEquals(3, timeslot.bookings().size());
+  }
+
+  @Test
+  public void canceledBookingIdsAreRemembered() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    timeslot = timeslot.cancelBooking("booking-1").cancelBooking("booking-2");
+
+    assertTrue(timeslot.wasCanceled("booking-1"));
+    // only bookings that existed count as canceled
+    assertFalse(timeslot.wasCanceled("booking-2"));
+  }
+
+  @Test
+  public void aRepeatedBookingIsRecognizedOnlyWithTheSameParticipants() {
+    var timeslot = book(available("alice", "superplane", "superteacher"), "booking-1");
+
+    assertTrue(timeslot.isBookedAs("booking-1", "alice", "superplane", "superteacher"));
+    assertFalse(timeslot.isBookedAs("booking-1", "bob", "superplane", "superteacher"));
+    assertFalse(timeslot.isBookedAs("booking-2", "alice", "superplane", "superteacher"));
+  }
+
+  @Test
+  public void onlyTheMostRecentCanceledBookingIdsAreKept() {
+    var timeslot = available("alice", "superplane", "superteacher");
+    for (int i = 0; i <= Timeslot.MAX_CANCELED_BOOKING_IDS; i++) {
+      timeslot = book(timeslot, "booking-" + i).cancelBooking("booking-" + i);
+    }
+
+    assertEquals(Timeslot.MAX_CANCELED_BOOKING_IDS, timeslot.canceledBookingIds().size());
+    assertFalse(timeslot.wasCanceled("booking-0"));
+    assertTrue(timeslot.wasCanceled("booking-1"));
+    assertTrue(timeslot.wasCanceled("booking-" + Timeslot.MAX_CANCELED_BOOKING_IDS));
+  }
+
+  @Test
+  public void unmarkingTakesAParticipantOutOfAvailable() {
+    var timeslot = available("alice", "superplane", "superteacher");
+
+    timeslot =
+        timeslot.unreserve(
+            new BookingEvent.ParticipantUnmarkedAvailable(
+                SLOT_ID, "superplane", ParticipantType.AIRCRAFT));
+
+    assertFalse(timeslot.isBookable("alice", "superplane", "superteacher"));
+    assertEquals(
+        Set.of(
+            new Participant("alice", ParticipantType.STUDENT),
+            new Participant("superteacher", ParticipantType.INSTRUCTOR)),
+        timeslot.available());
+  }
+
+  static Timeslot available(String studentId, String aircraftId, String instructorId) {
+    return new Timeslot(new HashSet<>(), new HashSet<Participant>())
+        .reserve(
+            new BookingEvent.ParticipantMarkedAvailable(
+                SLOT_ID, studentId, ParticipantType.STUDENT))
+        .reserve(
+            new BookingEvent.ParticipantMarkedAvailable(
+                SLOT_ID, aircraftId, ParticipantType.AIRCRAFT))
+        .reserve(
+            new BookingEvent.ParticipantMarkedAvailable(
+                SLOT_ID, instructorId, ParticipantType.INSTRUCTOR));
+  }
+
+  // Books every available participant, one of each type, under the ID
+  static Timeslot book(Timeslot timeslot, String bookingId) {
+    var participants = List.copyOf(timeslot.available());
+    for (Participant participant : participants) {
+      timeslot =
+          timeslot.book(
+              new BookingEvent.ParticipantBooked(
+                  SLOT_ID,
+                  participant.id(),
+                  participant.participantType(),
+                  bookingId,
+                  participants));
+    }
+    return timeslot;
+  }
+}
@@ -0,0 +1,96 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class VfrMinimumsTest {
+
+  private final VfrMinimums minimums = new VfrMinimums(3.0, 1000, 20, 25);
+
+  @Test
+  public void passesAForecastWithinTheLimits() {
+    assertEquals(
+        Optional.of(new VfrMinimums.Verdict(true, null)),
+        minimums.evaluate(forecast(10.0, 3000, 10, 15)));
+  }
+
+  @Test
+  public void clearSkiesStandInForAKnownCeiling() {
+    var clear = new WeatherForecast(10.0, null, 5, null, null, true, false, List.of());
+
+    assertEquals(Optional.of(new VfrMinimums.Verdict(true, null)), minimums.evaluate(clear));
+  }
+
+  @Test
+  public void theLimitsThemselvesPass() {
+    assertTrue(minimums.evaluate(forecast(3.0, 1000, 20, 25)).orElseThrow().meetsRequirements());
+  }
+
+  @Test
+  public void failsAForecastBeyondAnyLimit() {
+    assertFalse(minimums.evaluate(forecast(2.5, 3000, 10, 15)).orElseThrow().meetsRequirements());
+    assertFalse(minimums.evaluate(forecast(10.0, 800, 10, 15)).orElseThrow().meetsRequirements());
+    assertFalse(minimums.evaluate(forecast(10.0, 3000, 21, 21)).orElseThrow().meetsRequirements());
+    assertFalse(minimums.evaluate(forecast(10.0, 3000, 10, 30)).orElseThrow().meetsRequirements());
+  }
+
+  @Test
+  public void namesTheLimitThatIsExceeded() {
+    assertEquals(VfrMinimums.VISIBILITY, limitingFactor(forecast(2.5, 3000, 10, 15)));
+    assertEquals(VfrMinimums.CEILING, limitingFactor(forecast(10.0, 800, 10, 15)));
+    assertEquals(VfrMinimums.WIND, limitingFactor(forecast(10.0, 3000, 21, 21)));
+    assertEquals(VfrMinimums.GUST, limitingFactor(forecast(10.0, 3000, 10, 30)));
+  }
+
+  @Test
+  public void icingComesFirstThenHazardsThenTheLimitsInOrder() {
+    var everything =
+        new WeatherForecast(
+            1.0, 500, 30, 40, "freezing rain", false, true, List.of("thunderstorm"));
+    assertEquals(VfrMinimums.ICING, limitingFactor(everything));
+
+    var hazards =
+        new WeatherForecast(
+            1.0, 500, 30, 40, null, false, false, List.of("thunderstorm", "wind shear"));
+    assertEquals("thunderstorm", limitingFactor(hazards));
+
+    assertEquals(VfrMinimums.VISIBILITY, limitingFactor(forecast(1.0, 500, 30, 40)));
+    assertEquals(VfrMinimums.CEILING, limitingFactor(forecast(10.0, 500, 30, 40)));
+    assertEquals(VfrMinimums.WIND, limitingFactor(forecast(10.0, 3000, 30, 40)));
+  }
+
+  @Test
+  public void anyKnownFailureIsEnoughEvenIfTheRestIsUnknown() {
+    var windOnly = new WeatherForecast(null, null, 35, null, null, false, false, List.of());
+
+    assertEquals(VfrMinimums.WIND, limitingFactor(windOnly));
+  }
+
+  @Test
+  public void cannotPassAForecastThatSaysTooLittle() {
+    assertTrue(minimums.evaluate(WeatherForecast.unknown()).isEmpty());
+
+    var noVisibility = new WeatherForecast(null, 3000, 10, 15, null, false, false, List.of());
+    assertTrue(minimums.evaluate(noVisibility).isEmpty());
+
+    var noCeiling = new WeatherForecast(10.0, null, 10, 15, null, false, false, List.of());
+    assertTrue(minimums.evaluate(noCeiling).isEmpty());
+  }
+
+  private String limitingFactor(WeatherForecast forecast) {
+    var verdict = minimums.evaluate(forecast).orElseThrow();
+    assertFalse(verdict.meetsRequirements());
+    return verdict.limitingFactor();
+  }
+
+  private static WeatherForecast forecast(
+      double visibilityMiles, int ceilingFeet, int windKnots, int gustKnots) {
+    return new WeatherForecast(
+        visibilityMiles, ceilingFeet, windKnots, gustKnots, null, false, false, List.of());
+  }
+}
@@ -0,0 +1,89 @@
+package io.example.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class WaitlistTest {
+
+  private static final String SLOT_ID = "2025-08-08-09";
+
+  private final Waitlist.Entry bob = entry("booking-bob", "bob", "superplane", "superteacher");
+  private final Waitlist.Entry carol = entry("booking-carol", "carol", "cessna", "superteacher");
+  private final Waitlist.Entry dave = entry("booking-dave", "dave", "superplane", "superteacher");
+
+  @Test
+  public void joinsInOrderAndLeavesByBookingId() {
+    var waitlist = Waitlist.empty(SLOT_ID).join(bob).join(carol);
+
+    assertEquals(List.of(bob, carol), waitlist.entries());
+    assertTrue(waitlist.contains("booking-carol"));
+
+    waitlist = waitlist.leave("booking-bob");
+
+    assertEquals(List.of(carol), waitlist.entries());
+    assertFalse(waitlist.contains("booking-bob"));
+  }
+
+  @Test
+  public void theFirstBookableEntryIsTheFirstWhoseParticipantsAreAllAvailable() {
+    var waitlist = Waitlist.empty(SLOT_ID).join(carol).join(bob).join(dave);
+    var timeslot = TimeslotTest.available("bob", "superplane", "superteacher");
+    timeslot =
+        timeslot.reserve(
+            new BookingEvent.ParticipantMarkedAvailable(
+                SLOT_ID, "dave", Participant.ParticipantType.STUDENT));
+
+    // carol's aircraft isn't available, bob joined before dave
+    assertEquals(Optional.of(bob), waitlist.firstBookable(timeslot));
+  }
+
+  @Test
+  public void nothingIsBookableWhileAParticipantIsMissing() {
+    var waitlist = Waitlist.empty(SLOT_ID).join(carol);
+    var timeslot = TimeslotTest.available("carol", "superplane", "superteacher");
+
+    assertTrue(waitlist.firstBookable(timeslot).isEmpty());
+  }
+
+  @Test
+  public void entriesWhoseBookingIdIsUsedAreSettled() {
+    var waitlist = Waitlist.empty(SLOT_ID).join(bob).join(carol).join(dave);
+    var timeslot = TimeslotTest.available("bob", "superplane", "superteacher");
+    timeslot = TimeslotTest.book(timeslot, "booking-carol").cancelBooking("booking-carol");
+    timeslot = TimeslotTest.book(timeslot, "booking-bob");
+
+    assertEquals(List.of(bob, carol), waitlist.settled(timeslot));
+  }
+
+  @Test
+  public void settledEntriesAreNotBookable() {
+    var waitlist = Waitlist.empty(SLOT_ID).join(bob);
+    var timeslot = TimeslotTest.available("bob", "superplane", "superteacher");
+    timeslot = TimeslotTest.book(timeslot, "booking-bob").cancelBooking("booking-bob");
+
+    // the participants are available again, but the booking ID was used
+    assertTrue(timeslot.isBookable("bob", "superplane", "superteacher"));
+    assertTrue(waitlist.firstBookable(timeslot).isEmpty());
+  }
+
+  @Test
+  public void isPastOnceTheSlotHasStarted() {
+    var waitlist = Waitlist.empty(SLOT_ID);
+
+    assertFalse(waitlist.isPast(LocalDateTime.of(2025, 8, 8, 8, 0)));
+    assertTrue(waitlist.isPast(LocalDateTime.of(2025, 8, 8, 9, 0)));
+  }
+
+  private static Waitlist.Entry entry(
+      String bookingId, String studentId, String aircraftId, String instructorId) {
+    return new Waitlist.Entry(
+        bookingId, studentId, aircraftId, instructorId, Instant.parse("2025-08-01T10:00:00Z"));
+  }
+}